@@ -0,0 +1,77 @@
+#!/usr/bin/env python3
+# times each phase of the compiler (built into bin by make) on large generated WACC programs
+from subprocess import Popen, PIPE
+import argparse
+import os
+import sys
+import time
+
+CLASSPATH = "lib/antlr-4.4-complete.jar:bin"
+
+# deep parse trees need a deep stack in both the parser and the visitors
+JAVA = ["java", "-Xss1g", "-classpath", CLASSPATH, "Main", "run", "--time"]
+
+# [statements] assignments in one sequence, which the grammar nests as a right leaning chain
+def flat_program(statements, depth):
+    lines = ["begin", "  int x = 0 ;"]
+    lines += ["  x = x + 1 ;"] * statements
+    lines += ["  println x", "end"]
+    return "\n".join(lines) + "\n"
+
+# [statements] assignments spread over [depth] nested scopes, each scope holding the next one
+def nested_program(statements, depth):
+    per_scope = max(1, statements // depth)
+    lines = ["begin", "  int x = 0 ;"]
+    for d in range(depth):
+        lines.append("  begin")
+        lines += ["    x = x + 1 ;"] * per_scope
+    lines.append("    println x")
+    lines += ["  end"] * depth
+    lines.append("end")
+    return "\n".join(lines) + "\n"
+
+# [statements] assignments of one long binary expression, [depth] terms deep
+def expr_program(statements, depth):
+    expr = " + ".join(["1"] * depth)
+    lines = ["begin", "  int x = 0 ;"]
+    lines += ["  x = " + expr + " ;"] * (statements // depth)
+    lines += ["  println x", "end"]
+    return "\n".join(lines) + "\n"
+
+SHAPES = {"expr": expr_program, "flat": flat_program, "nested": nested_program}
+
+# compiles [program] once, returning the wall time and the time of each phase in ms
+def time_compile(program):
+    start = time.time()
+    p = Popen(JAVA, stdin=PIPE, stdout=PIPE, stderr=PIPE)
+    output, err = p.communicate(program.encode("utf-8"))
+    wall = (time.time() - start) * 1000
+    if p.returncode != 0:
+        print("Compilation failed with exit code {0}".format(p.returncode))
+        print(err.decode("utf-8")[:2000])
+        sys.exit(-1)
+    phases = []
+    for line in err.decode("utf-8").splitlines():
+        name, ms = line.split()
+        phases.append((name, float(ms[:-2])))
+    return wall, phases
+
+parser = argparse.ArgumentParser(description="Benchmark the WACC compiler")
+parser.add_argument("--shape", choices=sorted(SHAPES), default="nested")
+parser.add_argument("--statements", type=int, default=50000)
+parser.add_argument("--depth", type=int, default=1000)
+parser.add_argument("--runs", type=int, default=3)
+args = parser.parse_args()
+
+if not os.path.isdir("bin"):
+    print("Build the compiler with make first")
+    sys.exit(-1)
+
+program = SHAPES[args.shape](args.statements, args.depth)
+results = [time_compile(program) for r in range(args.runs)]
+
+print("{0}: {1} statements, depth {2}, best of {3} runs".format(
+    args.shape, args.statements, args.depth, args.runs))
+for i, (name, ms) in enumerate(results[0][1]):
+    print("  {0:<10} {1:10.2f}ms".format(name, min(r[1][i][1] for r in results)))
+print("  {0:<10} {1:10.2f}ms".format("wall", min(r[0] for r in results)))
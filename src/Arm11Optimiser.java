@@ -1,73 +1,113 @@
 import instructions.*;
-import util.Registers;
+import peephole.IfConversion;
+import peephole.PeepholeRule;
+import peephole.PeepholeTable;
+import util.Arm11Program;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Arm11Optimiser {
 
-    private WaccArm11Generator generator;
+    private Arm11Program program;
+
+    private PeepholeTable rules;
+
+    // how many times each rule has fired, in the order the rules were registered
+    private Map<PeepholeRule, Integer> fired = new LinkedHashMap<>();
+
+    private IfConversion ifConversion = new IfConversion();
 
     private int lastStepChanges = 0;
 
-    public Arm11Optimiser(WaccArm11Generator generator) {
-        this.generator = generator;
+    public Arm11Optimiser(Arm11Program program) {
+        this(program, PeepholeTable.defaultRules());
+    }
+
+    public Arm11Optimiser(Arm11Program program, PeepholeTable rules) {
+        this.program = program;
+        this.rules = rules;
+        for(PeepholeRule rule : rules.getAllRules()) fired.put(rule, 0);
     }
 
+    /*
+     * Runs the rules until none apply, then converts short ifs, whose arms the rules may have
+     * shortened, and runs the rules again over what that leaves
+     */
     public void optimise() {
+        applyRulesUntilDone();
+
+        int converted = ifConversion.getConverted();
+        for(List<Instruction> func : program.getCode().values()) {
+            ifConversion.convert(func);
+        }
+        if(ifConversion.getConverted() != converted) applyRulesUntilDone();
+    }
+
+    private void applyRulesUntilDone() {
         do {
             lastStepChanges = 0;
             optimisationStep();
         } while(lastStepChanges != 0);
     }
 
+    /*
+     * Gets how many times each rule fired, keyed by rule name
+     */
+    public Map<String, Integer> getRuleCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for(Map.Entry<PeepholeRule, Integer> entry : fired.entrySet()) {
+            counts.put(entry.getKey().getName(), entry.getValue());
+        }
+        counts.put("if conversion", ifConversion.getConverted());
+        return counts;
+    }
+
+    /*
+     * Compacts each function in place in a single linear pass. Instructions before [kept] are the
+     * ones surviving so far, so each instruction is moved down onto the end of them and the rules
+     * are then tried on the windows ending with it. The unused tail is cut off at the end
+     */
     private void optimisationStep() {
-        for(List<Instruction> func : generator.getProgram().getCode().values()) {
-            for(int i = 0; i < func.size() - 1; i++) {
-                // pop 2 instructions at position i and i + 1
-                Instruction curr = func.remove(i);
-                Instruction next = func.remove(i);
+        for(List<Instruction> func : program.getCode().values()) {
+            int kept = 0;
+            for(int i = 0; i < func.size(); i++) {
+                func.set(kept++, func.get(i));
+                kept = applyRules(func, kept);
+            }
+            func.subList(kept, func.size()).clear();
+        }
+    }
 
-                // assume successful optimisation
-                lastStepChanges++;
+    /*
+     * Tries every rule on the window of its size ending at [end], smallest windows first
+     * Applies the first rule that matches and returns the new end of the surviving instructions
+     */
+    private int applyRules(List<Instruction> func, int end) {
+        for(int size : rules.getWindowSizes()) {
+            if(size > end) break;
+            int start = end - size;
 
-                // OPTIMISATIONS
-
-                // load to reg, then instantly move to another reg
-                //if(curr instanceof LoadInstruction && next instanceof MoveInstruction) {
-                //    LoadInstruction load = (LoadInstruction) curr;
-                //    MoveInstruction move = (MoveInstruction) next;
-                //    if(load.getDest().equals(move.getSrc())) {
-                //        func.add(i, new LoadInstruction(move.getDest(), load.getSrc()));
-                //        continue;
-                //    }
-                //}
-
-                // store reg then load back to it
-                if(curr instanceof StoreInstruction && next instanceof LoadInstruction) {
-                    StoreInstruction store = (StoreInstruction) curr;
-                    LoadInstruction load = (LoadInstruction) next;
-                    if(store.getDest().equals(load.getSrc()) && store.getSrc().equals(load.getDest())
-                            && store.getOffset() == (int) load.getOffset()) {
-                        func.add(i, store);
-                        continue;
-                    }
-                }
+            for(PeepholeRule rule : rules.getRules(func.get(start))) {
+                if(rule.getWindowSize() != size) continue;
 
-                // double pop stack pointer
-                if(curr instanceof PopInstruction && next instanceof PopInstruction) {
-                    PopInstruction p1 = (PopInstruction) curr;
-                    PopInstruction p2 = (PopInstruction) next;
-                    if(p1.getReg().equals(Registers.sp) && p2.getReg().equals(Registers.sp)) {
-                        func.add(i, p1);
-                        continue;
-                    }
+                List<Instruction> replacement = rule.rewrite(func.subList(start, end));
+                if(replacement == null) continue;
+                if(replacement.size() > size) {
+                    throw new IllegalStateException("Peephole rule " + rule + " grew its window");
                 }
 
-                // add instructions back if no optimisation found, and correct optimisation counter
-                func.add(i, next);
-                func.add(i, curr);
-                lastStepChanges--;
+                // copy first, as the replacement may be a view of the window being overwritten
+                Instruction[] instructions = replacement.toArray(new Instruction[replacement.size()]);
+                for(int j = 0; j < instructions.length; j++) {
+                    func.set(start + j, instructions[j]);
+                }
+                fired.put(rule, fired.get(rule) + 1);
+                lastStepChanges++;
+                return start + instructions.length;
             }
         }
+        return end;
     }
-}
\ No newline at end of file
+}
@@ -1,19 +1,27 @@
-// import ANTLR's runtime libraries
-
-import antlr.WaccLexer;
-import antlr.WaccParser;
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.tree.ParseTree;
+import ir.ControlFlowGraph;
+import ir.IrFunction;
 
 import java.io.FileInputStream;
-
-// import antlr package (your code)
+import java.util.Arrays;
+import java.util.Map;
 
 public class Main {
 
     public static void main(String[] args) throws Exception {
 
+        // run as a persistent compile server, optionally on a given socket path
+        if(args.length > 0 && args[0].equals("server")) {
+            String socket = args.length > 1 ? args[1] : WaccCompileServer.DEFAULT_SOCKET;
+            new WaccCompileServer(socket).serve();
+            return;
+        }
+
+        // compile a whole directory: --batch <dir> [--out <dir>] [-j <threads>]
+        if(args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+
         if(args.length == 0) {
             //System.setIn(new FileInputStream("/tmp/prog"));
             //System.setIn(new FileInputStream("/home/adam/labs/wacclab/examples/valid/pairs/readPair.wacc"));
@@ -21,31 +29,69 @@ public class Main {
             //System.setIn(new FileInputStream("/Users/cyrusvahidi/WACC-compiler/examples/valid/variables/manyVariables.wacc"));
         }
 
-        // create a lexer that feeds off of input from System.in
-        WaccLexer lexer = new WaccLexer(new ANTLRInputStream(System.in));
-
-        // create a parser that feeds off the tokens buffer from the lexer
-        WaccParser parser = new WaccParser(new CommonTokenStream(lexer));
-        parser.setErrorHandler(new WaccParserErrorHandler());
+        // compile the program from System.in
+        // --min-spills orders operands by their Sethi-Ullman numbers to keep fewer values live
+        // --inline-checks makes runtime checks at each use, only branching out to report an error
+        WaccCompiler compiler = new WaccCompiler();
+        compiler.setMinimiseSpills(Arrays.asList(args).contains("--min-spills"));
+        compiler.setInlineChecks(Arrays.asList(args).contains("--inline-checks"));
+        int exitCode = compiler.compile(System.in);
+
+        // --time reports how long each phase took on stderr
+        if(Arrays.asList(args).contains("--time")) {
+            for(Map.Entry<String, Long> phase : compiler.getPhaseTimes().entrySet()) {
+                System.err.printf("%-10s %10.2fms%n", phase.getKey(), phase.getValue() / 1e6);
+            }
+        }
 
-        // begin parsing at "prog" antlr rule
-        ParseTree tree = parser.prog();
+        // --ir prints the IR the program was lowered from on stderr
+        if(Arrays.asList(args).contains("--ir") && compiler.getIr() != null) {
+            System.err.print(compiler.getIr());
+        }
 
-        // run the visitor
-        WaccSyntaxAnalyser analyser = new WaccSyntaxAnalyser();
-        analyser.visit(tree);
+        // --cfg prints the control flow graph of each function, with dominators and loop depths, on stderr
+        if(Arrays.asList(args).contains("--cfg") && compiler.getIr() != null) {
+            for(IrFunction func : compiler.getIr().getFunctions()) {
+                System.err.print(new ControlFlowGraph(func));
+            }
+        }
 
-        // run the generator
-        WaccArm11Generator generator = new WaccArm11Generator();
-        generator.setSymbolTable(analyser.getSymbolTable());
-        generator.visit(tree);
+        // --stats reports what the IR passes removed, register allocation and how many times each
+        // peephole rule fired on stderr
+        if(Arrays.asList(args).contains("--stats")) {
+            for(Map.Entry<String, Integer> stat : compiler.getStats().entrySet()) {
+                System.err.printf("%-30s %6d%n", stat.getKey(), stat.getValue());
+            }
+        }
 
-        Arm11Optimiser optimiser = new Arm11Optimiser(generator);
-        optimiser.optimise();
+        if(exitCode != WaccCompiler.SUCCESS_CODE) {
+            System.err.print(compiler.getErrors());
+            System.exit(exitCode);
+        }
 
-        System.out.print(generator.generate());
+        System.out.print(compiler.getOutput());
 
     }
-}
 
+    private static void runBatch(String[] args) throws Exception {
+        String sourceDir = null;
+        String outputDir = ".";
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for(int i = 0; i < args.length - 1; i += 2) {
+            switch(args[i]) {
+                case "--batch": sourceDir = args[i + 1]; break;
+                case "--out": outputDir = args[i + 1]; break;
+                case "-j": threads = Integer.parseInt(args[i + 1]); break;
+                default: sourceDir = null; i = args.length;
+            }
+        }
+        if(sourceDir == null || threads < 1) {
+            System.err.println("Usage: Main --batch <dir> [--out <dir>] [-j <threads>]");
+            System.exit(1);
+        }
 
+        WaccBatchCompiler batch = new WaccBatchCompiler(sourceDir, outputDir, threads);
+        System.out.print(batch.compileAll());
+    }
+}
@@ -0,0 +1,141 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/*
+ * Compiles every .wacc file below a directory concurrently, writing each program's assembly to
+ * the same relative path below the output directory, along with a summary of exit codes and
+ * timings. Every task owns its own WaccCompiler, so no compiler state is shared between threads
+ */
+public class WaccBatchCompiler {
+
+    public static final String SOURCE_EXTENSION = ".wacc";
+    public static final String ASSEMBLY_EXTENSION = ".s";
+    public static final String SUMMARY_FILE = "summary.txt";
+
+    static final int INTERNAL_ERROR_CODE = 1;
+
+    private final Path sourceDir;
+    private final Path outputDir;
+    private final int threads;
+
+    public WaccBatchCompiler(String sourceDir, String outputDir, int threads) {
+        this.sourceDir = Paths.get(sourceDir);
+        this.outputDir = Paths.get(outputDir);
+        this.threads = threads;
+    }
+
+    /*
+     * Compiles all programs, writes the summary and returns it
+     */
+    public String compileAll() throws IOException, InterruptedException {
+        List<Path> sources = new ArrayList<>();
+        try(Stream<Path> files = Files.walk(sourceDir)) {
+            Iterator<Path> it = files.iterator();
+            while(it.hasNext()) {
+                Path file = it.next();
+                if(file.toString().endsWith(SOURCE_EXTENSION)) sources.add(file);
+            }
+        }
+        Collections.sort(sources);
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<>();
+        for(final Path source : sources) {
+            futures.add(pool.submit(new Callable<Result>() {
+                @Override
+                public Result call() throws IOException {
+                    return compile(source);
+                }
+            }));
+        }
+        pool.shutdown();
+
+        List<Result> results = new ArrayList<>();
+        for(Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch(ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        long wallTime = System.nanoTime() - start;
+
+        String summary = summarise(results, wallTime);
+        Files.createDirectories(outputDir);
+        Files.write(outputDir.resolve(SUMMARY_FILE), summary.getBytes(StandardCharsets.UTF_8));
+        return summary;
+    }
+
+    /*
+     * Compiles a single program, writing out its assembly if it compiled
+     */
+    private Result compile(Path source) throws IOException {
+        Path relative = sourceDir.relativize(source);
+        long start = System.nanoTime();
+
+        int exitCode;
+        String output;
+        WaccCompiler compiler = new WaccCompiler();
+        try(InputStream in = new BufferedInputStream(Files.newInputStream(source))) {
+            exitCode = compiler.compile(in);
+            output = compiler.getOutput();
+        } catch(RuntimeException | StackOverflowError e) {
+            // a crash in one program must not stop the rest of the batch
+            exitCode = INTERNAL_ERROR_CODE;
+            output = null;
+        }
+        long time = System.nanoTime() - start;
+
+        if(exitCode == WaccCompiler.SUCCESS_CODE) {
+            String name = relative.getFileName().toString();
+            name = name.substring(0, name.length() - SOURCE_EXTENSION.length()) + ASSEMBLY_EXTENSION;
+            Path target = outputDir.resolve(relative).resolveSibling(name);
+            Files.createDirectories(target.getParent());
+            Files.write(target, output.getBytes(StandardCharsets.UTF_8));
+        }
+        return new Result(relative, exitCode, time);
+    }
+
+    private String summarise(List<Result> results, long wallTime) {
+        StringBuilder sb = new StringBuilder();
+        Map<Integer, Integer> codeCounts = new TreeMap<>();
+        long totalTime = 0;
+
+        for(Result result : results) {
+            sb.append(String.format("%3d %8.2fms %s%n", result.exitCode, millis(result.time), result.source));
+            Integer count = codeCounts.get(result.exitCode);
+            codeCounts.put(result.exitCode, count == null ? 1 : count + 1);
+            totalTime += result.time;
+        }
+
+        sb.append(String.format("%d programs on %d threads in %.2fms (%.2fms compiling)%n",
+                results.size(), threads, millis(wallTime), millis(totalTime)));
+        for(Map.Entry<Integer, Integer> entry : codeCounts.entrySet()) {
+            sb.append(String.format("exit code %d: %d%n", entry.getKey(), entry.getValue()));
+        }
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static class Result {
+        private final Path source;
+        private final int exitCode;
+        private final long time;
+
+        Result(Path source, int exitCode, long time) {
+            this.source = source;
+            this.exitCode = exitCode;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Long lived compiler process that accepts compile requests over a local unix socket,
+ * so that JVM startup and ANTLR warm up are only paid once.
+ *
+ * Each connection carries exactly one request:
+ *   request:  [length : int][program : length bytes]
+ *   response: [exit code : int][length : int][output : length bytes]
+ * where ints are big endian and the output is the assembly on success, or the error
+ * messages otherwise. A request longer than MAX_PROGRAM_SIZE is answered with an internal error.
+ * Connections are handled concurrently, each compile owning its own WaccCompiler, and one that
+ * has not sent its whole request within READ_TIMEOUT_MILLIS is closed
+ */
+public class WaccCompileServer {
+
+    public static final String DEFAULT_SOCKET = "wacc-server.sock";
+
+    static final int INTERNAL_ERROR_CODE = 1;
+
+    // the parser and visitors recurse once per level of nesting, so each connection is handled on
+    // a thread with a stack large enough for deeply nested programs whatever -Xss the server was
+    // started with
+    static final long COMPILE_STACK_SIZE = 512L * 1024 * 1024;
+
+    // longest program accepted, so a bad length cannot make the server allocate without bound
+    static final int MAX_PROGRAM_SIZE = 16 * 1024 * 1024;
+
+    static final long READ_TIMEOUT_MILLIS = 10000;
+
+    private final Path socketPath;
+
+    // handles each accepted connection, so one slow client or compile does not hold up the rest
+    private final ExecutorService workers = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(null, r, "wacc-compile-" + count.incrementAndGet(), COMPILE_STACK_SIZE);
+        }
+    });
+
+    // closes connections that are too slow to send their request
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor();
+
+    public WaccCompileServer(String socketPath) {
+        this.socketPath = Paths.get(socketPath);
+    }
+
+    /*
+     * Binds the socket and handles requests until the process is killed
+     */
+    public void serve() throws IOException {
+        // a socket file left behind by a killed server would make bind fail
+        Files.deleteIfExists(socketPath);
+
+        try(ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        Files.deleteIfExists(socketPath);
+                    } catch(IOException ignored) { }
+                }
+            });
+            System.err.println("WACC compile server listening on " + socketPath);
+
+            while(true) {
+                final SocketChannel client;
+                try {
+                    client = server.accept();
+                } catch(IOException e) {
+                    System.err.println("WACC compile server: " + e);
+                    continue;
+                }
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try(SocketChannel c = client) {
+                            handle(c);
+                        } catch(IOException | RuntimeException e) {
+                            // nothing one client sends may stop the server
+                            System.err.println("WACC compile server: " + e);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private void handle(final SocketChannel client) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)));
+
+        // closing the channel makes a blocked read throw, as unix sockets have no read timeout
+        ScheduledFuture<?> timeout = timeouts.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    client.close();
+                } catch(IOException ignored) { }
+            }
+        }, READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        int length;
+        byte[] program = null;
+        try {
+            length = in.readInt();
+            if(length >= 0 && length <= MAX_PROGRAM_SIZE) {
+                program = new byte[length];
+                in.readFully(program);
+            }
+        } finally {
+            timeout.cancel(false);
+        }
+
+        Response response;
+        if(program != null) {
+            response = compile(program);
+        } else {
+            response = new Response();
+            response.output = "program length " + length + " is not between 0 and " + MAX_PROGRAM_SIZE + "\n";
+        }
+
+        byte[] bytes = response.output.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(response.exitCode);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    /*
+     * Compiles [program], returning the exit code and the assembly or error messages
+     */
+    private Response compile(byte[] program) {
+        Response response = new Response();
+        WaccCompiler compiler = new WaccCompiler();
+        try {
+            response.exitCode = compiler.compile(new ByteArrayInputStream(program));
+            response.output = response.exitCode == WaccCompiler.SUCCESS_CODE
+                    ? compiler.getOutput() : compiler.getErrors();
+        } catch(IOException | RuntimeException | StackOverflowError e) {
+            // a crash in one program must not bring the server down
+            StringWriter trace = new StringWriter();
+            e.printStackTrace(new PrintWriter(trace));
+            response.exitCode = INTERNAL_ERROR_CODE;
+            response.output = trace.toString();
+        }
+        return response;
+    }
+
+    private static class Response {
+        int exitCode = INTERNAL_ERROR_CODE;
+        String output = "";
+    }
+}
@@ -0,0 +1,198 @@
+import antlr.WaccLexer;
+import antlr.WaccParser;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import ir.Arm11Lowering;
+import ir.BoundsCheckElimination;
+import ir.ConstantFolding;
+import ir.DeadCodeElimination;
+import ir.IrPass;
+import ir.IrProgram;
+import ir.LoadElimination;
+import ir.LoopInvariantCodeMotion;
+import ir.NullCheckElimination;
+import ir.OverflowCheckElimination;
+import ir.StrengthReduction;
+import ir.ValueNumbering;
+import org.antlr.v4.runtime.tree.ParseTree;
+import regalloc.LinearScanAllocator;
+import util.Arm11Program;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Runs the whole pipeline (lexer, parser, analyser, IR generator, IR passes, lowering, allocator,
+ * optimiser) over a single program without exiting the JVM, so that one process can compile many programs.
+ * A new lexer and parser are created for every program, but ANTLR shares its DFA cache
+ * between all instances of a recognizer, so later compilations reuse the warmed cache.
+ */
+public class WaccCompiler {
+
+    public static final int SUCCESS_CODE = 0;
+
+    // errors found in the last compilation
+    private WaccDiagnostics diagnostics = new WaccDiagnostics();
+    private String output = "";
+
+    // time spent in each phase of the last compilation, in the order the phases ran
+    private final Map<String, Long> phaseTimes = new LinkedHashMap<>();
+    private long phaseStart;
+
+    // what the IR passes counted, how many registers were allocated and spilled, and how many
+    // times each peephole rule fired, in the last compilation
+    private Map<String, Integer> stats = new LinkedHashMap<>();
+
+    // whether binary operators evaluate their heavier operand first, see WaccIrGenerator
+    private boolean minimiseSpills = false;
+
+    // whether runtime checks are made inline rather than by calling a runtime function, see Arm11Lowering
+    private boolean inlineChecks = false;
+
+    // optimisations run over the IR before it is lowered, in order
+    private final List<IrPass> irPasses = new ArrayList<>();
+
+    // the IR of the last compilation, as it was lowered
+    private IrProgram ir;
+
+    public WaccCompiler() {
+        addIrPass(new ConstantFolding());
+        addIrPass(new ValueNumbering());
+        addIrPass(new LoadElimination());
+        addIrPass(new BoundsCheckElimination());
+        addIrPass(new OverflowCheckElimination());
+        addIrPass(new NullCheckElimination());
+        addIrPass(new LoopInvariantCodeMotion());
+        addIrPass(new StrengthReduction());
+        addIrPass(new DeadCodeElimination());
+    }
+
+    /*
+     * Compiles the program read from [in], returning the exit code the compiler should report
+     */
+    public int compile(InputStream in) throws IOException {
+        phaseTimes.clear();
+        stats = new LinkedHashMap<>();
+        diagnostics = new WaccDiagnostics();
+        output = "";
+        ir = null;
+        phaseStart = System.nanoTime();
+        WaccSyntaxErrorListener errorListener = new WaccSyntaxErrorListener(diagnostics);
+
+        // create a lexer and parser that feed off of [in], reporting to [diagnostics]
+        WaccLexer lexer = new WaccLexer(new ANTLRInputStream(in));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+        WaccParser parser = new WaccParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorListener);
+        parser.setErrorHandler(new WaccParserErrorHandler());
+
+        // begin parsing at "prog" antlr rule
+        ParseTree tree;
+        try {
+            tree = parser.prog();
+        } catch(ParseCancellationException e) {
+            return WaccParserErrorHandler.ERROR_CODE;
+        }
+        endPhase("parse");
+        if(diagnostics.hasErrors()) return diagnostics.getExitCode();
+
+        // run the visitor, reporting every semantic error before stopping
+        WaccSyntaxAnalyser analyser = new WaccSyntaxAnalyser(diagnostics);
+        analyser.visit(tree);
+        endPhase("analyse");
+        if(diagnostics.hasErrors()) return diagnostics.getExitCode();
+
+        // translate the tree into IR
+        WaccIrGenerator generator = new WaccIrGenerator();
+        generator.setSymbolTable(analyser.getSymbolTable());
+        generator.setMinimiseSpills(minimiseSpills);
+        generator.visit(tree);
+        ir = generator.getProgram();
+        endPhase("generate");
+
+        for(IrPass pass : irPasses) {
+            pass.run(ir);
+            stats.putAll(pass.getStats());
+        }
+        endPhase("transform");
+
+        Arm11Lowering lowering = new Arm11Lowering(ir, new Arm11Program());
+        lowering.setInlineChecks(inlineChecks);
+        Arm11Program program = lowering.lower();
+        endPhase("lower");
+
+        // place the virtual registers in real registers
+        LinearScanAllocator allocator = new LinearScanAllocator();
+        allocator.allocate(program);
+        stats.put("registers allocated", allocator.getNumAllocated());
+        stats.put("registers spilled", allocator.getNumSpilled());
+        endPhase("allocate");
+
+        Arm11Optimiser optimiser = new Arm11Optimiser(program);
+        optimiser.optimise();
+        stats.putAll(optimiser.getRuleCounts());
+        endPhase("optimise");
+
+        output = program.toCode();
+        endPhase("emit");
+        return SUCCESS_CODE;
+    }
+
+    private void endPhase(String phase) {
+        long now = System.nanoTime();
+        phaseTimes.put(phase, now - phaseStart);
+        phaseStart = now;
+    }
+
+    /*
+     * Gets the time in nanoseconds spent in each phase that the last compilation reached
+     */
+    public Map<String, Long> getPhaseTimes() {
+        return phaseTimes;
+    }
+
+    public void setMinimiseSpills(boolean minimiseSpills) {
+        this.minimiseSpills = minimiseSpills;
+    }
+
+    public void setInlineChecks(boolean inlineChecks) {
+        this.inlineChecks = inlineChecks;
+    }
+
+    /*
+     * Adds an optimisation to run over the IR of each program, after those already added
+     */
+    public void addIrPass(IrPass pass) {
+        irPasses.add(pass);
+    }
+
+    /*
+     * Gets the IR of the last compilation that reached code generation, after the IR passes ran
+     */
+    public IrProgram getIr() {
+        return ir;
+    }
+
+    public Map<String, Integer> getStats() {
+        return stats;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public WaccDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public String getErrors() {
+        return diagnostics.toString();
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Collects the syntax and semantic errors found while compiling a program, so that
+ * compilation can carry on after an error and the caller decides what exit code to use
+ */
+public class WaccDiagnostics {
+
+    public static final int SYNTAX_ERROR_CODE = 100;
+    public static final int SEMANTIC_ERROR_CODE = 200;
+
+    private final List<Diagnostic> errors = new ArrayList<>();
+
+    public void addError(int line, int column, String msg, int code) {
+        errors.add(new Diagnostic(line, column, msg, code));
+    }
+
+    public void addSyntaxError(int line, int column, String msg) {
+        addError(line, column, msg, SYNTAX_ERROR_CODE);
+    }
+
+    public void addSemanticError(int line, int column, String msg) {
+        addError(line, column, msg, SEMANTIC_ERROR_CODE);
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public List<Diagnostic> getErrors() {
+        return errors;
+    }
+
+    /*
+     * Gets the exit code for the errors recorded so far, syntax errors take precedence
+     * over semantic errors, and 0 is returned if there are none
+     */
+    public int getExitCode() {
+        int code = 0;
+        for(Diagnostic error : errors) {
+            if(error.getCode() == SYNTAX_ERROR_CODE) return SYNTAX_ERROR_CODE;
+            code = error.getCode();
+        }
+        return code;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for(Diagnostic error : errors) {
+            sb.append(error).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public static class Diagnostic {
+        private final int line;
+        private final int column;
+        private final String msg;
+        private final int code;
+
+        public Diagnostic(int line, int column, String msg, int code) {
+            this.line = line;
+            this.column = column;
+            this.msg = msg;
+            this.code = code;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public String getMessage() {
+            return msg;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ":" + column + " " + msg;
+        }
+    }
+}
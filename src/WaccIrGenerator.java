@@ -0,0 +1,927 @@
+import antlr.WaccParserBaseVisitor;
+import ir.*;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.RuleNode;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import util.*;
+
+import java.util.*;
+
+import static antlr.WaccParser.*;
+
+/*
+ * Translates a checked parse tree into the three address IR of the program
+ * Every variable and intermediate result is held in its own virtual register, and visiting an
+ * expression gives the value holding its result, which is a constant for literals
+ */
+public class WaccIrGenerator extends WaccParserBaseVisitor<Value> {
+
+    private IrProgram program = new IrProgram();
+    private IrFunction func;
+    private WeightAnalyser weights = new WeightAnalyser();
+    private SymbolTable st;
+
+    // registers holding the variables of each enclosing scope, innermost first
+    private Deque<Map<String, Register>> variables = new ArrayDeque<>();
+
+    // number of labels created so far, labels are unique over the whole program
+    private int labelCount = 0;
+
+    // whether to evaluate the heavier operand of a binary operator first, which needs fewer registers
+    // but may change which of two runtime errors in one expression is reported
+    private boolean minimiseSpills = false;
+
+    // size on stack for each type
+    private static final int INT_SIZE = 4;
+    private static final int BOOL_SIZE = 1;
+    private static final int CHAR_SIZE = 1;
+    private static final int STRING_SIZE = 4;
+    private static final int PAIR_SIZE = 4;
+    private static final int PAIR_HEAP_SIZE = 8;
+    private static final int FST_OFFSET = 0;
+    private static final int SND_OFFSET = 4;
+    private static final int ARRAY_SIZE = 4;
+    private static final int BOOL_CHAR_SIZE = 1;
+    private static final int WORD_SIZE = 4;
+
+    private static final String MALLOC = Call.MALLOC_NAME;
+    private static final String EXIT = Call.EXIT_NAME;
+
+    private static final Value TRUE = Value.constant(1);
+    private static final Value FALSE = Value.constant(0);
+
+    public IrProgram getProgram() {
+        return program;
+    }
+
+    public void setSymbolTable(SymbolTable symbolTable) {
+        this.st = symbolTable;
+    }
+
+    public void setMinimiseSpills(boolean minimiseSpills) {
+        this.minimiseSpills = minimiseSpills;
+    }
+
+    /*
+     * Adds each child of [tree] to a priority queue, with priority given by the childs weight
+     * Then visits each of these children starting at the one which uses the most registers for optimal register usage
+     */
+    @Override
+    public Value visitChildren(RuleNode tree) {
+        PriorityQueue<ParseTree> children = new PriorityQueue<>(1, new Comparator<ParseTree>() {
+            @Override
+            public int compare(ParseTree p1, ParseTree p2) {
+                return compareWeights(p1, p2);
+            }
+        });
+
+        for(int i = 0; i < tree.getChildCount(); i++) {
+            children.add(tree.getChild(i));
+        }
+
+        Value result = null;
+        for(ParseTree child : children) {
+            result = visit(child);
+        }
+
+        return result;
+    }
+
+    /*
+     * Compares the amount of registers that two parsetrees will use in code generation
+     * Returns negative if p1 uses more than p2, else positive
+     */
+    public int compareWeights(ParseTree p1, ParseTree p2) {
+        int w1 = weight(p1);
+        int w2 = weight(p2);
+        return w1 - w2;
+    }
+
+    /*
+     * Calculates how many registers [tree] will use in code generation
+     * Weights are memoised, the whole program is weighed once in visitProg
+     */
+    public int weight(ParseTree tree) {
+        return weights.getWeight(tree);
+    }
+
+    /*
+     * Scopes are tracked here as well as in the symbol table, as a variable is only given its
+     * register once its declaration is generated, so a name used before an inner declaration of
+     * it still refers to the outer variable
+     */
+    private void enterScope() {
+        st.enterNextScope();
+        variables.push(new HashMap<String, Register>());
+    }
+
+    private void exitScope() {
+        st.exitScope();
+        variables.pop();
+    }
+
+    private void declareVariable(String ident, Register reg) {
+        variables.peek().put(ident, reg);
+    }
+
+    /*
+     * Gets the register holding the innermost variable called [ident] declared so far
+     */
+    private Register getVariable(String ident) {
+        for(Map<String, Register> scope : variables) {
+            Register reg = scope.get(ident);
+            if(reg != null) return reg;
+        }
+        return null;
+    }
+
+    private Register newTemp() {
+        return program.newTemp();
+    }
+
+    private String newLabel() {
+        return "L" + labelCount++;
+    }
+
+    ////////////// VISITOR METHODS /////////////
+
+    @Override
+    public Value visitProg(ProgContext ctx) {
+        weights.visit(ctx);
+        variables.push(new HashMap<String, Register>());
+        func = program.addFunction("main");
+
+        visitChildren(ctx);
+
+        // main exits with 0 unless it calls exit
+        func.add(new Return(Value.constant(0)));
+        return null;
+    }
+
+    @Override
+    public Value visitFunc(FuncContext ctx) {
+        // functions can only see their own variables, not those of main
+        IrFunction mainFunc = func;
+        Deque<Map<String, Register>> mainVariables = variables;
+        variables = new ArrayDeque<>();
+        enterScope();
+
+        String ident = ctx.ident().getText();
+        func = program.addFunction("f_" + ident);
+
+        // add parameters and visit body
+        if(ctx.paramList() != null) visit(ctx.paramList());
+        visit(ctx.stat());
+
+        // every path through a function returns, this only ends the last block
+        func.add(new Return(null));
+        exitScope();
+        variables = mainVariables;
+        func = mainFunc;
+        return null;
+    }
+
+    @Override
+    public Value visitParamList(ParamListContext ctx) {
+        String funcName = ((FuncContext) ctx.getParent()).ident().getText();
+        List<Pair<WaccType, String>> params = st.getParamList(funcName);
+
+        // each parameter is loaded into its own register on entry
+        for(Pair<WaccType, String> param : params) {
+            Register paramRegister = newTemp();
+            func.addParam(paramRegister, getTypeSize(param.a));
+            declareVariable(param.b, paramRegister);
+        }
+
+        return null;
+    }
+
+    @Override
+    public Value visitFuncCall(FuncCallContext ctx) {
+        String ident = ctx.ident().getText();
+        List<Pair<WaccType, String>> params = st.getParamList(ident);
+
+        // evaluate arguments last first, each is passed with the size of its parameter
+        int numArgs = ctx.argList() != null ? ctx.argList().expr().size() : 0;
+        Value[] args = new Value[numArgs];
+        int[] argSizes = new int[numArgs];
+        for(int i = numArgs - 1; i >= 0; i--) {
+            args[i] = visit(ctx.argList().expr(i));
+            argSizes[i] = getTypeSize(params.get(i).a);
+        }
+
+        Register result = newTemp();
+        func.add(new FunctionCall(result, "f_" + ident, args, argSizes));
+        return Value.of(result);
+    }
+
+    @Override
+    public Value visitExitStat(ExitStatContext ctx) {
+        func.add(new Call(null, EXIT, visit(ctx.expr())));
+        return null;
+    }
+
+    @Override
+    public Value visitExpr(ExprContext ctx) {
+        if(ctx.INT_LIT() != null) {
+            return Value.constant(Integer.parseInt(ctx.INT_LIT().getSymbol().getText()));
+        }
+        if(ctx.BOOL_LIT() != null) {
+            return ctx.BOOL_LIT().getSymbol().getText().equals("true") ? TRUE : FALSE;
+        }
+        if(ctx.CHAR_LIT() != null) {
+            String text = ctx.CHAR_LIT().getSymbol().getText();
+            return Value.constant(Arm11Program.decode(text).charAt(1));
+        }
+        if(ctx.STRING_LIT() != null) {
+            // get string and strip quotes
+            String s = ctx.STRING_LIT().getSymbol().getText();
+            s = s.substring(1, s.length() - 1);
+
+            // a literal printed directly is never written to, so it can share a pooled copy
+            boolean readOnly = ctx.getParent() instanceof PrintStatContext
+                    || ctx.getParent() instanceof PrintlnStatContext;
+            Register nextRegister = newTemp();
+            func.add(new LoadString(nextRegister, s, readOnly));
+            return Value.of(nextRegister);
+        }
+        if(ctx.pairLiter() != null) {
+            return visit(ctx.pairLiter());
+        }
+        if(ctx.ident() != null) {
+            // the variable's own register, expression results are never written to in place
+            return Value.of(getVariable(ctx.ident().getText()));
+        }
+        if(ctx.arrayElem() != null) {
+            String ident = ctx.arrayElem().ident().getText();
+            boolean isBoolOrChar = getIdentTypeSize(ident) == BOOL_CHAR_SIZE;
+            Value address = elementAddress(ctx.arrayElem(), isBoolOrChar, isBoolOrChar);
+            Register elemRegister = newTemp();
+            func.add(new Load(elemRegister, address, 0, isBoolOrChar));
+            return Value.of(elemRegister);
+        }
+        if(ctx.unaryOper() != null) {
+            return visit(ctx.unaryOper());
+        }
+        if(ctx.boolBinaryOper() != null) {
+            return visitBinOp(ctx.boolBinaryOper());
+        }
+        if(ctx.otherBinaryOper() != null) {
+            return visitBinOp(ctx.otherBinaryOper());
+        }
+        if(ctx.OPEN_PARENTHESES() != null) {
+            return visitExpr(ctx.expr(0));
+        }
+        return null;
+    }
+
+    /*
+     * Gets the address of the element of [arrayElem], checking each index is in bounds
+     * Nested arrays hold pointers to the inner arrays, and the elements of the innermost array
+     * are bytes if [isByte], those of the outer ones if [isOuterByte]
+     */
+    private Value elementAddress(ArrayElemContext arrayElem, boolean isOuterByte, boolean isByte) {
+        Value array = Value.of(getVariable(arrayElem.ident().getText()));
+        for(int i = 0; i < arrayElem.expr().size(); i++) {
+            Value index = visit(arrayElem.expr(i));
+            if(i > 0) {
+                Register inner = newTemp();
+                func.add(new Load(inner, array, 0, false));
+                array = Value.of(inner);
+            }
+            func.add(new CheckBounds(index, array));
+
+            boolean isLast = i == arrayElem.expr().size() - 1;
+            Register address = newTemp();
+            func.add(new ElementAddress(address, array, index, isLast ? isByte : isOuterByte));
+            array = Value.of(address);
+        }
+        return array;
+    }
+
+    @Override
+    public Value visitUnaryOper(UnaryOperContext ctx) {
+        // get antlr index of the operator
+        int tokenIndex = ((TerminalNode) ctx.getChild(0)).getSymbol().getType();
+
+        // visit associated expression
+        ExprContext expr = ((ExprContext) ctx.getParent()).expr(0);
+        Value exprValue = visit(expr);
+
+        switch(tokenIndex) {
+            case NOT:
+                return unaryOp(UnaryOp.Operator.NOT, exprValue);
+            case MINUS:
+                return unaryOp(UnaryOp.Operator.NEG, exprValue);
+            case LEN:
+                // the length is stored before the elements
+                Register length = newTemp();
+                func.add(new Load(length, exprValue, 0, false));
+                return Value.of(length);
+            case ORD:
+            case CHR:
+                // characters and integers are held the same way, so the value is unchanged
+                return exprValue;
+            default:
+                return null;
+        }
+    }
+
+    private Value unaryOp(UnaryOp.Operator op, Value src) {
+        Register dest = newTemp();
+        func.add(new UnaryOp(op, dest, src));
+        return Value.of(dest);
+    }
+
+    private Value visitBinOp(ParseTree ctx) {
+        ExprContext expr = (ExprContext) ctx.getParent();
+        BinaryOp.Operator op = operatorOf(ctx);
+        if(op == null) return null;
+        Value[] operands = visitOperands(expr);
+
+        // store result in new register
+        Register dest = newTemp();
+        func.add(new BinaryOp(op, dest, operands[0], operands[1]));
+        return Value.of(dest);
+    }
+
+    /*
+     * Visits both operands of the binary operator in [expr], the one needing more registers first
+     * when minimising spills, and gets their values in order
+     */
+    private Value[] visitOperands(ExprContext expr) {
+        ExprContext lhsExpr = expr.expr(0);
+        ExprContext rhsExpr = expr.expr(1);
+        Value lhs;
+        Value rhs;
+        if(minimiseSpills && weight(rhsExpr) > weight(lhsExpr)) {
+            rhs = visit(rhsExpr);
+            lhs = visit(lhsExpr);
+        } else {
+            lhs = visit(lhsExpr);
+            rhs = visit(rhsExpr);
+        }
+        return new Value[] {lhs, rhs};
+    }
+
+    /*
+     * Gets the operator of the binary operator node [ctx]
+     */
+    private static BinaryOp.Operator operatorOf(ParseTree ctx) {
+        // get antlr index of the operator
+        int tokenIndex = ((TerminalNode) ctx.getChild(0)).getSymbol().getType();
+        switch(tokenIndex) {
+            case AND: return BinaryOp.Operator.AND;
+            case OR: return BinaryOp.Operator.OR;
+            case MULT: return BinaryOp.Operator.MUL;
+            case DIV: return BinaryOp.Operator.DIV;
+            case MOD: return BinaryOp.Operator.MOD;
+            case PLUS: return BinaryOp.Operator.ADD;
+            case MINUS: return BinaryOp.Operator.SUB;
+            case GREATER_THAN: return BinaryOp.Operator.GT;
+            case GREATER_THAN_EQ: return BinaryOp.Operator.GE;
+            case LESS_THAN: return BinaryOp.Operator.LT;
+            case LESS_THAN_EQ: return BinaryOp.Operator.LE;
+            case EQ: return BinaryOp.Operator.EQ;
+            case NOT_EQ: return BinaryOp.Operator.NE;
+            default: return null;
+        }
+    }
+
+    @Override
+    public Value visitVarAssignment(VarAssignmentContext ctx) {
+        IdentContext id = ctx.assignLhs().ident();
+        ArrayElemContext arrayElem = ctx.assignLhs().arrayElem();
+        PairElemContext pairElemLhs = ctx.assignLhs().pairElem();
+
+        ExprContext expr = ctx.assignRhs().expr();
+
+        if (id != null) {
+            String ident = id.getText();
+            boolean needsSize = ctx.assignRhs().arrayLiter() != null || ctx.assignRhs().pairElem() != null;
+            assignRhs(getVariable(ident), ctx.assignRhs(), needsSize ? getIdentTypeSize(ident) : 0);
+        }
+
+        if (arrayElem != null) {
+            String ident = arrayElem.ident().getText();
+            boolean isBoolOrCharArray = getIdentTypeSize(ident) == BOOL_CHAR_SIZE;
+            boolean isString = new WaccType(STRING).equals(st.lookupType(ident));
+
+            Value rhs = visit(expr);
+            Value address = elementAddress(arrayElem, isString, isBoolOrCharArray || isString);
+            func.add(new Store(rhs, address, 0, isBoolOrCharArray || isString));
+        }
+
+        if (pairElemLhs != null) {
+            Value rhs = visit(expr);
+            Value box = visit(pairElemLhs);
+            boolean isBoolOrChar = getTypeSize(typeOf(expr)) == BOOL_CHAR_SIZE;
+            func.add(new Store(rhs, box, 0, isBoolOrChar));
+        }
+
+        return null;
+    }
+
+    /*
+     * Sets [var] to the value of [rhs], where [typeSize] is the size of an element of an array
+     * literal or of the pair element read
+     */
+    private void assignRhs(Register var, AssignRhsContext rhs, int typeSize) {
+        if (rhs.expr() != null) {
+            func.add(new Copy(var, visit(rhs.expr())));
+        }
+
+        if (rhs.arrayLiter() != null) {
+            func.add(new Copy(var, visitArrayLiter(rhs.arrayLiter(), typeSize)));
+        }
+
+        if (rhs.newPair() != null) {
+            func.add(new Copy(var, visit(rhs.newPair())));
+        }
+
+        if (rhs.pairElem() != null) {
+            // pair elements are boxed, so the element holds the address of the value
+            Value box = visit(rhs.pairElem());
+            func.add(new Load(var, box, 0, typeSize == BOOL_CHAR_SIZE));
+        }
+
+        if (rhs.funcCall() != null) {
+            func.add(new Copy(var, visitFuncCall(rhs.funcCall())));
+        }
+    }
+
+    private int getIdentTypeSize(String ident) {
+        WaccType type = st.lookupType(ident);
+        return getIdSize(type.getId());
+    }
+
+    /*
+     * Gets the size of a value of [type] when it is stored in memory
+     * Arrays and pairs are stored as pointers
+     */
+    private int getTypeSize(WaccType type) {
+        if(type.isArray()) return ARRAY_SIZE;
+        int size = getIdSize(type.getId());
+        return size != 0 ? size : WORD_SIZE;
+    }
+
+    /*
+     * Works out the type of [expr] from its literals, operators and the types of its variables
+     */
+    private WaccType typeOf(ExprContext expr) {
+        if(expr.INT_LIT() != null) return new WaccType(INT);
+        if(expr.BOOL_LIT() != null) return new WaccType(BOOL);
+        if(expr.CHAR_LIT() != null) return new WaccType(CHAR);
+        if(expr.STRING_LIT() != null) return new WaccType(STRING);
+        if(expr.pairLiter() != null) return WaccType.PAIR;
+        if(expr.ident() != null) return st.lookupType(expr.ident().getText());
+        if(expr.arrayElem() != null) return st.lookupType(expr.arrayElem().ident().getText()).getBaseType();
+        if(expr.unaryOper() != null) {
+            return WaccType.fromUnaryOp(((TerminalNode) expr.unaryOper().getChild(0)).getSymbol().getType());
+        }
+        if(expr.otherBinaryOper() != null) {
+            return WaccType.fromBinaryOp(((TerminalNode) expr.otherBinaryOper().getChild(0)).getSymbol().getType());
+        }
+        if(expr.boolBinaryOper() != null) {
+            return WaccType.fromBinaryOp(((TerminalNode) expr.boolBinaryOper().getChild(0)).getSymbol().getType());
+        }
+        if(expr.OPEN_PARENTHESES() != null) return typeOf(expr.expr(0));
+        return WaccType.INVALID;
+    }
+
+    private int getIdSize(int id) {
+        switch (id) {
+            case INT: return INT_SIZE;
+            case BOOL: return BOOL_SIZE;
+            case CHAR: return CHAR_SIZE;
+            case STRING: return STRING_SIZE;
+            case PAIR: return PAIR_SIZE;
+        }
+        return 0;
+    }
+
+    /*
+     * Pairs hold the address of a box for each element, so elements of any size can be stored
+     */
+    @Override
+    public Value visitNewPair(NewPairContext ctx) {
+        Register heapPtr = heapMalloc(PAIR_HEAP_SIZE);
+        for (int i = 0; i < ctx.expr().size(); i++) {
+            Value elem = visit(ctx.expr(i));
+            int size = getTypeSize(typeOf(ctx.expr(i)));
+            Register box = heapMalloc(size);
+            func.add(new Store(elem, Value.of(box), 0, size == BOOL_CHAR_SIZE));
+            func.add(new Store(Value.of(box), Value.of(heapPtr), PAIR_SIZE * i, false));
+        }
+        return Value.of(heapPtr);
+    }
+
+    @Override
+    public Value visitIdent(IdentContext ctx) {
+        Register reg = getVariable(ctx.getText());
+        return reg != null ? Value.of(reg) : null;
+    }
+
+
+    @Override
+    public Value visitScopeStat(ScopeStatContext ctx) {
+        enterScope();
+        visitChildren(ctx);
+        exitScope();
+
+        return null;
+    }
+
+    @Override
+    public Value visitPairLiter(PairLiterContext ctx) {
+        // null is the address 0
+        return Value.constant(0);
+    }
+
+
+    @Override
+    public Value visitStat(StatContext ctx) {
+        // semicolon returns its statments in order, else just visit the children
+        if(ctx.SEMICOLON() != null) {
+            visit(ctx.stat(0));
+            return visit(ctx.stat(1));
+        } else {
+            return visitChildren(ctx);
+        }
+    }
+
+    @Override
+    public Value visitVarDeclaration(VarDeclarationContext ctx) {
+        TypeContext type = ctx.type();
+        ArrayLiterContext arrayLiter = ctx.assignRhs().arrayLiter();
+
+        // the size of the elements of an array literal or of the pair element read
+        int typeSize = getTypeSize(type);
+        if (arrayLiter != null) {
+            typeSize = 0;
+            if (arrayLiter.expr().size() > 0) {
+                if (arrayLiter.expr(0).ident() != null) { // nested arrays
+                    typeSize = ARRAY_SIZE;
+                } else {
+                    typeSize = getTypeSize(type);
+                }
+            }
+        }
+
+        // each variable gets a register of its own, declared once the right hand side is evaluated
+        Register varRegister = newTemp();
+        assignRhs(varRegister, ctx.assignRhs(), typeSize);
+        declareVariable(ctx.ident().getText(), varRegister);
+        return null;
+    }
+
+    private Register heapMalloc(int heapSize) {
+        Register heapPtr = newTemp();
+        func.add(new Call(heapPtr, MALLOC, Value.constant(heapSize)));
+        return heapPtr;
+    }
+
+    private int getTypeSize(TypeContext ctx) {
+        if (ctx.baseType() != null) {
+            return getBaseTypeSize(ctx.baseType());
+        }
+        if (ctx.pairType() != null) {
+            return PAIR_SIZE;
+        }
+        if (ctx.type() != null) {
+            return getTypeSize(ctx.type());
+        }
+        return 0;
+    }
+
+    private int getBaseTypeSize(BaseTypeContext ctx) {
+        if (ctx.INT() != null) {
+            return INT_SIZE;
+        }
+        if (ctx.BOOL() != null) {
+            return BOOL_SIZE;
+        }
+        if (ctx.CHAR() != null) {
+            return CHAR_SIZE;
+        }
+        if (ctx.STRING() != null) {
+            return STRING_SIZE;
+        }
+        return 0;
+    }
+
+    @Override
+    public Value visitReturnStat(ReturnStatContext ctx) {
+        func.add(new Return(visit(ctx.expr())));
+        return null;
+    }
+
+    @Override
+    public Value visitIncrementStat(IncrementStatContext ctx) {
+        String text = ctx.INC_IDENT().getText();
+        String ident = text.substring(0, text.length() - 2);
+        String operator = text.substring(text.length() - 2, text.length());
+
+        Register varRegister = getVariable(ident);
+        BinaryOp.Operator op = operator.equals("++") ? BinaryOp.Operator.ADD : BinaryOp.Operator.SUB;
+        BinaryOp increment = new BinaryOp(op, varRegister, Value.of(varRegister), Value.constant(1));
+        increment.setChecked(false);
+        func.add(increment);
+        return null;
+    }
+
+    @Override
+    public Value visitReadStat(ReadStatContext ctx) {
+        AssignLhsContext lhs = ctx.assignLhs();
+        if(lhs.ident() == null) {
+            // only variables can be read into, the element is still checked to exist
+            visit(lhs);
+            return null;
+        }
+
+        String ident = lhs.ident().getText();
+        WaccType varType = st.lookupType(ident);
+        if(varType.equals(new WaccType(INT))) {
+            func.add(new Read(getVariable(ident), false));
+        } else if(varType.equals(new WaccType(CHAR))) {
+            func.add(new Read(getVariable(ident), true));
+        }
+        return null;
+    }
+
+    @Override
+    public Value visitPrintStat(PrintStatContext ctx) {
+        visitPrint(ctx.expr(), false);
+        return null;
+    }
+
+    @Override
+    public Value visitPrintlnStat(PrintlnStatContext ctx) {
+        visitPrint(ctx.expr(), true);
+        return null;
+    }
+
+    private void visitPrint(ExprContext expr, boolean ln) {
+        // visit printint expression
+        Value msg = visit(expr);
+
+        // find type of expression, and deal with reference cases
+        WaccType exprType = null;
+        if(expr.ident() != null) {
+            exprType = st.lookupType(expr.ident().getText());
+
+            if(exprType.isArray() || exprType.isPair()) {
+                func.add(new Call(null, Arm11Program.PRINT_REF_NAME, msg));
+            }
+        } else if(expr.otherBinaryOper() != null) {
+            exprType = WaccType.fromBinaryOp(((TerminalNode) expr.otherBinaryOper().getChild(0)).getSymbol().getType());
+        } else if(expr.boolBinaryOper() != null) {
+            exprType = WaccType.fromBinaryOp(((TerminalNode) expr.boolBinaryOper().getChild(0)).getSymbol().getType());
+        } else if(expr.unaryOper() != null) {
+            exprType = WaccType.fromUnaryOp(((TerminalNode) expr.unaryOper().getChild(0)).getSymbol().getType());
+        }
+
+        // print null pair
+        if(expr.pairLiter() != null) {
+            func.add(new Call(null, Arm11Program.PRINT_REF_NAME, msg));
+        }
+
+        // print array elems
+        if(expr.arrayElem() != null) {
+            String ident = expr.arrayElem().ident().getText();
+            WaccType arrayType = st.lookupType(ident);
+            int id = arrayType.getId();
+            switch (id) {
+                case STRING:
+                    func.add(new Call(null, Arm11Program.PRINT_STRING_NAME, msg));
+                    break;
+                case BOOL:
+                    func.add(new Call(null, Arm11Program.PRINT_BOOL_NAME, msg));
+                    break;
+                case INT:
+                    func.add(new Call(null, Arm11Program.PRINT_INT_NAME, msg));
+                    break;
+                case CHAR:
+                    func.add(new Call(null, Arm11Program.PRINT_CHAR_NAME, msg));
+            }
+        }
+
+        // print string
+        if(expr.STRING_LIT() != null || new WaccType(STRING).equals(exprType)) {
+            func.add(new Call(null, Arm11Program.PRINT_STRING_NAME, msg));
+        }
+
+        // print bool
+        if(expr.BOOL_LIT() != null || new WaccType(BOOL).equals(exprType)) {
+            func.add(new Call(null, Arm11Program.PRINT_BOOL_NAME, msg));
+        }
+
+        // print int
+        if(expr.INT_LIT() != null || new WaccType(INT).equals(exprType)) {
+            func.add(new Call(null, Arm11Program.PRINT_INT_NAME, msg));
+        }
+
+        // print char
+        if(expr.CHAR_LIT() != null || new WaccType(CHAR).equals(exprType)) {
+            func.add(new Call(null, Arm11Program.PRINT_CHAR_NAME, msg));
+        }
+
+        // print ln
+        if(ln) func.add(new Call(null, Arm11Program.PRINTLN_NAME));
+    }
+
+    /*
+     * Gets the address of the box holding the fst or snd element, checking the pair is not null
+     */
+    @Override
+    public Value visitPairElem(PairElemContext ctx) {
+        Value pair = visit(ctx.expr());
+        func.add(new CheckNull(pair));
+
+        int offset = ctx.FST() != null ? FST_OFFSET : SND_OFFSET;
+        Register box = newTemp();
+        func.add(new Load(box, pair, offset, false));
+        return Value.of(box);
+    }
+
+    @Override
+    public Value visitFreeStat(FreeStatContext ctx) {
+        func.add(new Call(null, Arm11Program.FREE_PAIR_NAME, visit(ctx.expr())));
+        return null;
+    }
+
+    /*
+     * Loops are laid out with the condition after the body, so each iteration takes one branch
+     */
+    @Override
+    public Value visitWhileStat(WhileStatContext ctx) {
+        String body = newLabel();
+        String condition = newLabel();
+
+        func.add(new Jump(condition));
+        func.startBlock(body);
+        enterScope();
+        visit(ctx.stat());
+        exitScope();
+
+        func.startBlock(condition);
+        branchIfTrue(ctx.expr(), body);
+        return null;
+    }
+
+    @Override
+    public Value visitDoWhileStat(DoWhileStatContext ctx) {
+        String body = newLabel();
+
+        func.startBlock(body);
+        enterScope();
+        visit(ctx.stat());
+        exitScope();
+
+        branchIfTrue(ctx.expr(), body);
+        return null;
+    }
+
+    /*
+     * The initialiser, condition and update are in the enclosing scope, only the body has its own
+     */
+    @Override
+    public Value visitForStat(ForStatContext ctx) {
+        String body = newLabel();
+        String condition = newLabel();
+
+        visit(ctx.stat(0));
+        func.add(new Jump(condition));
+        func.startBlock(body);
+        enterScope();
+        visit(ctx.stat(2));
+        exitScope();
+        visit(ctx.stat(1));
+
+        func.startBlock(condition);
+        branchIfTrue(ctx.expr(), body);
+        return null;
+    }
+
+    @Override
+    public Value visitIfStat(IfStatContext ctx) {
+        String elseLabel = newLabel();
+        String end = newLabel();
+
+        branchIfFalse(ctx.expr(), elseLabel);
+        enterScope();
+        visit(ctx.stat(0));
+        exitScope();
+        func.add(new Jump(end));
+
+        func.startBlock(elseLabel);
+        enterScope();
+        visit(ctx.stat(1));
+        exitScope();
+
+        func.startBlock(end);
+        return null;
+    }
+
+    @Override
+    public Value visitIfStatSmall(IfStatSmallContext ctx) {
+        String end = newLabel();
+
+        branchIfFalse(ctx.expr(), end);
+        enterScope();
+        visit(ctx.stat());
+        exitScope();
+        st.enterNextScope();
+
+        func.startBlock(end);
+        return null;
+    }
+
+    private void branchIfTrue(ExprContext condition, String target) {
+        branchIf(condition, true, target);
+    }
+
+    private void branchIfFalse(ExprContext condition, String target) {
+        branchIf(condition, false, target);
+    }
+
+    /*
+     * Continues at [target] if [condition] is [when], and at the next instruction if not
+     * A comparison branches on its operands, rather than on a boolean made from them, and the
+     * right operand of && or || is only evaluated when the left does not decide the result,
+     * unless evaluating it could stop the program, as it must then still be evaluated
+     */
+    private void branchIf(ExprContext condition, boolean when, String target) {
+        if(condition.OPEN_PARENTHESES() != null) {
+            branchIf(condition.expr(0), when, target);
+            return;
+        }
+        if(condition.unaryOper() != null && condition.unaryOper().NOT() != null) {
+            branchIf(condition.expr(0), !when, target);
+            return;
+        }
+
+        if(condition.boolBinaryOper() != null && !mayFail(condition.expr(1))) {
+            // && is decided by a false operand and || by a true one
+            boolean decides = condition.boolBinaryOper().OR() != null;
+            if(when == decides) {
+                branchIf(condition.expr(0), when, target);
+                branchIf(condition.expr(1), when, target);
+            } else {
+                String next = newLabel();
+                branchIf(condition.expr(0), decides, next);
+                branchIf(condition.expr(1), when, target);
+                func.startBlock(next);
+            }
+            return;
+        }
+
+        if(condition.otherBinaryOper() != null) {
+            Condition cond = operatorOf(condition.otherBinaryOper()).getCondition();
+            if(cond != null) {
+                Value[] operands = visitOperands(condition);
+                func.add(new Branch(when ? cond : cond.negate(), operands[0], operands[1], target));
+                return;
+            }
+        }
+
+        func.add(new Branch(Condition.EQ, visit(condition), when ? TRUE : FALSE, target));
+    }
+
+    /*
+     * Whether evaluating [tree] could stop the program with a runtime error, from arithmetic
+     * overflowing, dividing by zero or an array index out of bounds
+     */
+    private static boolean mayFail(ParseTree tree) {
+        if(tree instanceof ArrayElemContext) return true;
+        if(tree instanceof TerminalNode) {
+            switch(((TerminalNode) tree).getSymbol().getType()) {
+                case MULT: case DIV: case MOD: case PLUS: case MINUS: return true;
+                default: return false;
+            }
+        }
+        for(int i = 0; i < tree.getChildCount(); i++) {
+            if(mayFail(tree.getChild(i))) return true;
+        }
+        return false;
+    }
+
+    private Value visitArrayLiter(ArrayLiterContext ctx, int typeSize) {
+        int arrLength = ctx.expr().size();
+        int heapSize = arrLength * typeSize + INT_SIZE; // INT_SIZE IS TO STORE LENGTH OF ARRAY
+        boolean isBoolOrChar = typeSize == BOOL_CHAR_SIZE;
+
+        // set up heap memory allocation
+        Register heapPtr = heapMalloc(heapSize);
+
+        // process each array elem
+        for (int i = 0; i < arrLength; i++) {
+            Value src = visit(ctx.expr(i));
+            func.add(new Store(src, Value.of(heapPtr), INT_SIZE + i * typeSize, isBoolOrChar));
+        }
+        // the length is stored before the elements
+        func.add(new Store(Value.constant(arrLength), Value.of(heapPtr), 0, false));
+        return Value.of(heapPtr);
+    }
+}
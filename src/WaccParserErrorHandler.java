@@ -1,18 +1,22 @@
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 
+/*
+ * Stops parsing at the first syntax error, after it has been reported to the error listeners
+ */
 public class WaccParserErrorHandler extends DefaultErrorStrategy {
 
     static final int ERROR_CODE = 100;
 
     @Override
     public void recover(Parser recognizer, RecognitionException e) {
-        System.exit(ERROR_CODE);
+        throw new ParseCancellationException(e);
     }
 
     @Override
     public Token recoverInline(Parser recognizer) {
-        System.exit(ERROR_CODE);
-        return null;
+        // reported and then cancelled by the enclosing rule through recover
+        throw new InputMismatchException(recognizer);
     }
 
     @Override
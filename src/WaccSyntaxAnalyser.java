@@ -8,10 +8,14 @@ import static antlr.WaccParser.*;
 public class WaccSyntaxAnalyser extends WaccParserBaseVisitor<WaccType> {
 
     private SymbolTable st = new SymbolTable();
-    private WaccVisitorErrorHandler errorHandler = new WaccVisitorErrorHandler();
+    private WaccVisitorErrorHandler errorHandler;
 
     public boolean verbose = false;
 
+    public WaccSyntaxAnalyser(WaccDiagnostics diagnostics) {
+        errorHandler = new WaccVisitorErrorHandler(diagnostics);
+    }
+
     //////////////// UTILITY METHODS //////////////
 
     public SymbolTable getSymbolTable() {
@@ -166,6 +170,7 @@ public class WaccSyntaxAnalyser extends WaccParserBaseVisitor<WaccType> {
 
         if(!st.isDeclared(ident)) {
             errorHandler.symbolNotFound(ctx, ident);
+            return null;
         }
 
         WaccType type = st.lookupType(ident);
@@ -378,8 +383,18 @@ public class WaccSyntaxAnalyser extends WaccParserBaseVisitor<WaccType> {
     @Override
     public WaccType visitFuncCall(FuncCallContext ctx) {
         outputln("Calling function");
+        WaccType type = st.lookupFunctionType(ctx.ident().getText());
+        if(type == null) {
+            errorHandler.symbolNotFound(ctx.ident(), ctx.ident().getText());
+
+            // with no parameters to check against, only report errors in the arguments themselves
+            if(ctx.argList() != null) {
+                for(ExprContext arg : ctx.argList().expr()) visit(arg);
+            }
+            return WaccType.INVALID;
+        }
         if(ctx.argList() != null) visit(ctx.argList());
-        return st.lookupFunctionType(ctx.ident().getText());
+        return type;
     }
 
     @Override
@@ -389,14 +404,15 @@ public class WaccSyntaxAnalyser extends WaccParserBaseVisitor<WaccType> {
 
         // check that number of args passed is correct
         if(ctx.expr().size() != st.getNumParams(ident)) {
-            outputln(st.getParamList(ident).toString());
+            outputln(String.valueOf(st.getParamList(ident)));
             outputln(ctx.expr().size() + " " + st.getNumParams(ident));
             errorHandler.invalidNumberOfArgs(ctx, ident);
         }
 
-        // check each param matches type
+        // check each param matches type, as far as there are params to match
         for (int i = 0; i < ctx.expr().size(); i++) {
             WaccType argType = visit(ctx.expr(i));
+            if(i >= st.getNumParams(ident)) continue;
             WaccType paramType = st.getFunctionParamType(ident, i);
             if(!typesMatch(argType, paramType)) {
                 errorHandler.typeMismatch(ctx.expr(i), paramType, argType);
@@ -487,7 +503,7 @@ public class WaccSyntaxAnalyser extends WaccParserBaseVisitor<WaccType> {
             i = Integer.parseInt(ctx.getText());
         } catch(NumberFormatException e) {
             errorHandler.integerOverflow(ctx);
-            return null;
+            return new WaccType(INT);
         }
 
         if (i < WaccVisitorErrorHandler.INTEGER_MIN_VALUE || i > WaccVisitorErrorHandler.INTEGER_MAX_VALUE) {
@@ -605,6 +621,7 @@ public class WaccSyntaxAnalyser extends WaccParserBaseVisitor<WaccType> {
 
         if(!st.isDeclared(ident)) {
             errorHandler.symbolNotFound(ctx, ident);
+            return WaccType.INVALID;
         }
 
         return st.lookupType(ident);
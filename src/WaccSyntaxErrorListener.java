@@ -0,0 +1,21 @@
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+/*
+ * Records errors reported by the lexer and parser as syntax errors instead of printing them
+ */
+public class WaccSyntaxErrorListener extends BaseErrorListener {
+
+    private final WaccDiagnostics diagnostics;
+
+    public WaccSyntaxErrorListener(WaccDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                            int charPositionInLine, String msg, RecognitionException e) {
+        diagnostics.addSyntaxError(line, charPositionInLine, msg);
+    }
+}
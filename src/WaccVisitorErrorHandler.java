@@ -12,26 +12,38 @@ public class WaccVisitorErrorHandler {
     static final int INTEGER_MAX_VALUE = (int) (Math.pow(2, 31) - 1);
     static final int INTEGER_MIN_VALUE = (int) -Math.pow(2, 31);
 
+    private final WaccDiagnostics diagnostics;
+
+    public WaccVisitorErrorHandler(WaccDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /*
+     * Type mismatches against a missing or invalid type are not reported, as the error
+     * that produced that type has already been
+     */
     public void typeMismatch(ParseTree ctx, WaccType expected, WaccType actual) {
+        if(!isReportable(expected) || !isReportable(actual)) return;
         String msg = "type mismatch, expected " + expected + " got " + actual;
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
     
     public void typeMismatch(ParseTree ctx, WaccType expected1, 
                              WaccType expected2, WaccType actual) {
+        if(!isReportable(actual)) return;
         String msg = "type mismatch, expected " + expected1 + " or " 
                       + expected2 + " got " + actual;
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void freeTypeMismatch(ParseTree ctx, WaccType actual) {
         String msg = "incompatible target for free statement";
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void symbolNotFound(ParseTree ctx, String ident) {
         String msg = "symbol '" + ident + "' not found";
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void integerOverflow(ParseTree ctx) {
@@ -44,60 +56,64 @@ public class WaccVisitorErrorHandler {
 
     public void invalidOperator(ParseTree ctx, String op) {
         String msg = "invalid binary operator usage (" + op + ")";
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void invalidNumberOfArgs(ParseTree ctx, String funcIdent) {
         String msg = "invalid number of arguments passed to function \'" + funcIdent + '\'';
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void incompatibleArrayElemTypes(ParseTree ctx) {
         String msg = "incompatible types in array literal";
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void variableRedeclaration(ParseTree ctx, String ident) {
         String msg = "variable '" + ident + "' redeclared";
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void functionRedeclaration(ParseTree ctx, String ident) {
         String msg = "function '" + ident + "' redeclared";
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void assignmentToFunction(ParseTree ctx, String ident) {
         String msg = "assignment to function '" + ident + "'";
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void unprintableType(ParseTree ctx, String text) {
         String msg = "'" + text + "' is not a printable expression";
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void unreachableCode(ParseTree ctx) {
         String msg = "unreachable code detected";
-        throwError(ctx, msg, ERROR_CODE_SEMANTIC);
+        reportError(ctx, msg, ERROR_CODE_SEMANTIC);
     }
 
     public void missingReturnStatement(ParseTree ctx, String funcName) {
         String msg = "function '" + funcName + "' missing return statement";
-        throwError(ctx, msg, ERROR_CODE_SYNTAX);
+        reportError(ctx, msg, ERROR_CODE_SYNTAX);
     }
 
     private void overflow(ParseTree ctx, String type, int minRange, int maxRange) {
         String msg = type + " overflow, expected " + type + " between " + minRange + " and " + maxRange;
-        throwError(ctx, msg, ERROR_CODE_SYNTAX);
+        reportError(ctx, msg, ERROR_CODE_SYNTAX);
     }
 
     public void nonValidStatement(ParseTree ctx) {
         String msg = "for loop initialiser is not a valid statement";
-        throwError(ctx, msg, ERROR_CODE_SYNTAX);
+        reportError(ctx, msg, ERROR_CODE_SYNTAX);
     }
 
-    private String getLine(ParseTree ctx) {
+    private boolean isReportable(WaccType type) {
+        return type != null && type.isValid();
+    }
+
+    private void reportError(ParseTree ctx, String msg, int code) {
         int line = 0;
         int pos = 0;
         if(ctx instanceof ParserRuleContext) {
@@ -107,13 +123,8 @@ public class WaccVisitorErrorHandler {
         } else if(ctx instanceof TerminalNode) {
             TerminalNode ctxt = (TerminalNode) ctx;
             line = ctxt.getSymbol().getLine();
-            pos = ctxt.getSymbol().getLine();
+            pos = ctxt.getSymbol().getCharPositionInLine();
         }
-        return "line " + line + ":" + pos + " ";
-    }
-
-    private void throwError(ParseTree ctx, String msg, int code) {
-        System.err.println(getLine(ctx) + msg);
-        System.exit(code);
+        diagnostics.addError(line, pos, msg, code);
     }
 }
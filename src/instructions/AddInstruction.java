@@ -2,9 +2,14 @@ package instructions;
 
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class AddInstruction extends Instruction {
-    private final Register rDest;
-    private final Register rSrc;
+    private Register rDest;
+    private Register rSrc;
     private final Operand2 op;
     private int lslVal = 0;
 
@@ -24,6 +29,44 @@ public class AddInstruction extends Instruction {
     }
 
 
+    public Register getDest() {
+        return rDest;
+    }
+
+    public Register getSrc() {
+        return rSrc;
+    }
+
+    public Operand2 getOp() {
+        return op;
+    }
+
+    /*
+     * Whether this only adds its operand, without shifting it or setting flags
+     */
+    public boolean isPlain() {
+        return lslVal == 0 && !setFlags;
+    }
+
+    @Override
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(op.getUses());
+        uses.add(rSrc);
+        return uses;
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        return Collections.singletonList(rDest);
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        rDest = replace(rDest, mapping);
+        rSrc = replace(rSrc, mapping);
+        op.replaceRegisters(mapping);
+    }
+
     @Override
     public String toCode() {
         return "ADD" + (setFlags ? "S " : " ")
@@ -2,9 +2,14 @@ package instructions;
 
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class AndInstruction extends Instruction {
-    private final Register rDest;
-    private final Register rLhs;
+    private Register rDest;
+    private Register rLhs;
     private final Operand2 rhs;
 
     public AndInstruction(Register rDest, Register rLhs, Operand2 rhs) {
@@ -13,6 +18,25 @@ public class AndInstruction extends Instruction {
         this.rhs = rhs;
     }
 
+    @Override
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(rhs.getUses());
+        uses.add(rLhs);
+        return uses;
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        return Collections.singletonList(rDest);
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        rDest = replace(rDest, mapping);
+        rLhs = replace(rLhs, mapping);
+        rhs.replaceRegisters(mapping);
+    }
+
     @Override
     public String toCode() {
         return "AND  " + rDest + ", " + rLhs + ", " + rhs;
@@ -1,15 +1,8 @@
 package instructions;
 
-public class BranchEqualInstruction extends Instruction {
-
-    String label;
+public class BranchEqualInstruction extends ConditionalBranchInstruction {
 
     public BranchEqualInstruction(String label) {
-        this.label = label;
-    }
-
-    @Override
-    public String toCode() {
-        return "BEQ " + label;
+        super("EQ", label);
     }
 }
@@ -0,0 +1,8 @@
+package instructions;
+
+public class BranchGreaterThanEqualInstruction extends ConditionalBranchInstruction {
+
+    public BranchGreaterThanEqualInstruction(String label) {
+        super("GE", label);
+    }
+}
@@ -0,0 +1,8 @@
+package instructions;
+
+public class BranchGreaterThanInstruction extends ConditionalBranchInstruction {
+
+    public BranchGreaterThanInstruction(String label) {
+        super("GT", label);
+    }
+}
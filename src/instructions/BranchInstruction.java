@@ -8,6 +8,10 @@ public class BranchInstruction extends Instruction {
         this.label = label;
     }
 
+    public String getLabel() {
+        return label;
+    }
+
     @Override
     public String toCode() {
         return "B " + label;
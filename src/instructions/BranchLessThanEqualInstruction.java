@@ -0,0 +1,8 @@
+package instructions;
+
+public class BranchLessThanEqualInstruction extends ConditionalBranchInstruction {
+
+    public BranchLessThanEqualInstruction(String label) {
+        super("LE", label);
+    }
+}
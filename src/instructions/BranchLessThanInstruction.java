@@ -0,0 +1,8 @@
+package instructions;
+
+public class BranchLessThanInstruction extends ConditionalBranchInstruction {
+
+    public BranchLessThanInstruction(String label) {
+        super("LT", label);
+    }
+}
@@ -0,0 +1,8 @@
+package instructions;
+
+public class BranchNotEqualInstruction extends ConditionalBranchInstruction {
+
+    public BranchNotEqualInstruction(String label) {
+        super("NE", label);
+    }
+}
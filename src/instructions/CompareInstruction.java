@@ -2,8 +2,12 @@ package instructions;
 
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public class CompareInstruction extends Instruction {
-    private final Register reg;
+    private Register reg;
     private final Operand2 op;
 
     public CompareInstruction(Register reg, Operand2 op) {
@@ -11,6 +15,19 @@ public class CompareInstruction extends Instruction {
         this.op = op;
     }
 
+    @Override
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(op.getUses());
+        uses.add(reg);
+        return uses;
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        reg = replace(reg, mapping);
+        op.replaceRegisters(mapping);
+    }
+
     @Override
     public String toCode() {
         return "CMP " + reg + ", " + op;
@@ -0,0 +1,28 @@
+package instructions;
+
+/*
+ * Branches to [label] if the flags meet [cond], and otherwise continues with the next instruction
+ */
+public abstract class ConditionalBranchInstruction extends Instruction {
+
+    private final String cond;
+    private final String label;
+
+    protected ConditionalBranchInstruction(String cond, String label) {
+        this.cond = cond;
+        this.label = label;
+    }
+
+    public String getCondition() {
+        return cond;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public String toCode() {
+        return "B" + cond + " " + label;
+    }
+}
@@ -0,0 +1,46 @@
+package instructions;
+
+import util.Register;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Runs [ins] only when the flags meet [cond], e.g. ADDNE r4, r4, #1
+ * Loads and stores take the condition before their size, as in LDRNESB and STREQB
+ */
+public class ConditionalInstruction extends Instruction {
+    private final String cond;
+    private final Instruction ins;
+
+    public ConditionalInstruction(String cond, Instruction ins) {
+        this.cond = cond;
+        this.ins = ins;
+    }
+
+    @Override
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(ins.getUses());
+        uses.addAll(ins.getDefs());
+        return uses;
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        return ins.getDefs();
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        ins.replaceRegisters(mapping);
+    }
+
+    @Override
+    public String toCode() {
+        String code = ins.toCode();
+        int end = code.indexOf(' ');
+        if(code.startsWith("LDR") || code.startsWith("STR")) end = 3;
+        return code.substring(0, end) + cond + code.substring(end);
+    }
+}
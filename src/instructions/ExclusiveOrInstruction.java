@@ -2,9 +2,14 @@ package instructions;
 
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class ExclusiveOrInstruction extends Instruction {
-    private final Register rDest;
-    private final Register lhs;
+    private Register rDest;
+    private Register lhs;
     private final Operand2 rhs;
 
     public ExclusiveOrInstruction(Register rDest, Register lhs, Operand2 rhs) {
@@ -13,6 +18,25 @@ public class ExclusiveOrInstruction extends Instruction {
         this.rhs = rhs;
     }
 
+    @Override
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(rhs.getUses());
+        uses.add(lhs);
+        return uses;
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        return Collections.singletonList(rDest);
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        rDest = replace(rDest, mapping);
+        lhs = replace(lhs, mapping);
+        rhs.replaceRegisters(mapping);
+    }
+
     @Override
     public String toCode() {
         return "EOR " + rDest + ", " + lhs + ", " + rhs;
@@ -1,5 +1,11 @@
 package instructions;
 
+import util.Register;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public abstract class Instruction {
 
     public int indentation;
@@ -11,4 +17,42 @@ public abstract class Instruction {
     public String toCode() {
         return this.getClass().getSimpleName() + ".toCode() not implemented";
     }
+
+    /*
+     * Gets the registers whose values this instruction reads
+     * A conditional instruction reads its destination too, as it is left unchanged when the condition fails
+     */
+    public List<Register> getUses() {
+        return Collections.emptyList();
+    }
+
+    /*
+     * Gets the registers this instruction writes to
+     */
+    public List<Register> getDefs() {
+        return Collections.emptyList();
+    }
+
+    /*
+     * Replaces each register in this instruction that is a key of [mapping] with its value
+     */
+    public void replaceRegisters(Map<Register, Register> mapping) {
+    }
+
+    /*
+     * Formats [regs] as a register list, e.g. {r4, r5, lr}
+     */
+    protected static String registerList(List<Register> regs) {
+        StringBuilder list = new StringBuilder("{");
+        for(int i = 0; i < regs.size(); i++) {
+            if(i != 0) list.append(", ");
+            list.append(regs.get(i));
+        }
+        return list.append('}').toString();
+    }
+
+    protected static Register replace(Register reg, Map<Register, Register> mapping) {
+        Register replacement = mapping.get(reg);
+        return replacement != null ? replacement : reg;
+    }
 }
@@ -9,6 +9,10 @@ public class LabelInstruction extends Instruction {
         this.ident = ident;
     }
 
+    public String getIdent() {
+        return ident;
+    }
+
     @Override
     public String toCode() {
         return ident + ":";
@@ -2,8 +2,13 @@ package instructions;
 
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class LoadEqualInstruction extends Instruction {
-    private final Register reg;
+    private Register reg;
     private final Operand2 op;
 
     public LoadEqualInstruction(Register reg, Operand2 func) {
@@ -11,6 +16,24 @@ public class LoadEqualInstruction extends Instruction {
         this.op = func;
     }
 
+    @Override
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(op.getUses());
+        uses.add(reg);
+        return uses;
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        return Collections.singletonList(reg);
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        reg = replace(reg, mapping);
+        op.replaceRegisters(mapping);
+    }
+
     @Override
     public String toCode() {
         return "LDREQ " + reg + ", " + op;
@@ -2,11 +2,20 @@ package instructions;
 
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class LoadInstruction extends Instruction {
-    private final Register rDest;
+    private Register rDest;
 
     private final Operand2 op;
     private boolean isByte;
+
+    // how far a post indexed load moves its base register on after reading, or 0 if it does not
+    private int postIndex = 0;
     public LoadInstruction(Register rDest, Operand2 op) {
         this.rDest = rDest;
         this.op = op;
@@ -30,8 +39,31 @@ public class LoadInstruction extends Instruction {
         return op.getOffset();
     }
 
+    public void setPostIndex(int postIndex) {
+        this.postIndex = postIndex;
+    }
+
+    @Override
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(op.getUses());
+        return uses;
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        // a post indexed load writes the next address back to its base register
+        if(postIndex != 0) return Arrays.asList(rDest, op.getReg());
+        return Collections.singletonList(rDest);
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        rDest = replace(rDest, mapping);
+        op.replaceRegisters(mapping);
+    }
+
     @Override
     public String toCode() {
-        return (!isByte ?  "LDR " : "LDRSB ") + rDest + ", " + op;
+        return (!isByte ?  "LDR " : "LDRSB ") + rDest + ", " + op + (postIndex != 0 ? ", #" + postIndex : "");
     }
 }
@@ -2,8 +2,13 @@ package instructions;
 
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class LoadSignedByteInstruction extends Instruction {
-    private final Register rDest;
+    private Register rDest;
     private Operand2 op;
 
     public LoadSignedByteInstruction(Register rDest, Operand2 op) {
@@ -11,6 +16,23 @@ public class LoadSignedByteInstruction extends Instruction {
         this.op = op;
     }
 
+    @Override
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(op.getUses());
+        return uses;
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        return Collections.singletonList(rDest);
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        rDest = replace(rDest, mapping);
+        op.replaceRegisters(mapping);
+    }
+
     @Override
     public String toCode() {
         return "LDRSB " + rDest + ", " + op;
@@ -2,11 +2,16 @@ package instructions;
 
 import util.Register;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class MoveInstruction extends Instruction {
     private Register rDest;
     private Register rSrc;
     private int iSrc;
     private char cSrc;
+    private Operand2 op;
     private boolean isImmediate = false;
     private boolean isChar = false;
 
@@ -28,6 +33,14 @@ public class MoveInstruction extends Instruction {
         isImmediate = true;
     }
 
+    /*
+     * Moves a shifted register, such as MOV r4, r5, LSL #2
+     */
+    public MoveInstruction(Register rDest, Operand2 op) {
+        this.rDest = rDest;
+        this.op = op;
+    }
+
     public Register getSrc() {
         return rSrc;
     }
@@ -37,11 +50,31 @@ public class MoveInstruction extends Instruction {
     }
 
     public boolean isRegisterSrc() {
-        return !isImmediate && !isChar;
+        return !isImmediate && !isChar && op == null;
+    }
+
+    @Override
+    public List<Register> getUses() {
+        if(isRegisterSrc()) return Collections.singletonList(rSrc);
+        if(op != null) return op.getUses();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        return Collections.singletonList(rDest);
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        rDest = replace(rDest, mapping);
+        if(isRegisterSrc()) rSrc = replace(rSrc, mapping);
+        if(op != null) op.replaceRegisters(mapping);
     }
 
     @Override
     public String toCode() {
+        if(op != null) return "MOV " + rDest + ", " + op;
         return "MOV " + rDest + ", " + (isImmediate ? ("#" + (isChar ? "'" + cSrc + "'" : iSrc)) :  rSrc);
     }
 }
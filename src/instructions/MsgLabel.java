@@ -17,10 +17,6 @@ MsgLabel extends LabelInstruction {
         length = Arm11Program.decode(msg).length();
     }
 
-    public String getIdent() {
-        return ident;
-    }
-
     public String getMsg() {
         return msg;
     }
@@ -2,14 +2,20 @@ package instructions;
 
 import util.Register;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Created by ah3114 on 02/12/15.
  */
 public class MultiplyInstruction extends Instruction {
-    private final Register rDest;
-    private final Register rOverflow;
-    private final Register lhs;
-    private final Register rhs;
+    private Register rDest;
+    // the high word of the product, or null for a MUL that only gives the low word
+    private Register rOverflow;
+    private Register lhs;
+    private Register rhs;
 
     public MultiplyInstruction(Register rDest, Register rOverflow, Register lhs, Register rhs) {
         this.rDest = rDest;
@@ -18,8 +24,32 @@ public class MultiplyInstruction extends Instruction {
         this.rhs = rhs;
     }
 
+    public MultiplyInstruction(Register rDest, Register lhs, Register rhs) {
+        this(rDest, null, lhs, rhs);
+    }
+
+    @Override
+    public List<Register> getUses() {
+        return Arrays.asList(lhs, rhs);
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        if(rOverflow == null) return Collections.singletonList(rDest);
+        return Arrays.asList(rDest, rOverflow);
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        rDest = replace(rDest, mapping);
+        if(rOverflow != null) rOverflow = replace(rOverflow, mapping);
+        lhs = replace(lhs, mapping);
+        rhs = replace(rhs, mapping);
+    }
+
     @Override
     public String toCode() {
+        if(rOverflow == null) return "MUL " + rDest + ", " + lhs + ", " + rhs;
         return "SMULL " + rDest + ", " + rOverflow + ", " + lhs + ", " + rhs;
     }
 }
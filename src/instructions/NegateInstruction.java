@@ -2,19 +2,45 @@ package instructions;
 
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class NegateInstruction extends Instruction {
-    private final Register rDest;
-    private final Register rSrc;
+    private Register rDest;
+    private Register rSrc;
     private final Operand2 op;
 
+    public boolean setFlags = true;
+
     public NegateInstruction(Register rDest, Register rSrc, Operand2 op) {
         this.rDest = rDest;
         this.rSrc = rSrc;
         this.op = op;
     }
 
+    @Override
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(op.getUses());
+        uses.add(rSrc);
+        return uses;
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        return Collections.singletonList(rDest);
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        rDest = replace(rDest, mapping);
+        rSrc = replace(rSrc, mapping);
+        op.replaceRegisters(mapping);
+    }
+
     @Override
     public String toCode() {
-        return "RSBS " + rDest + ", " + rSrc + ", " + op;
+        return "RSB" + (setFlags ? "S " : " ") + rDest + ", " + rSrc + ", " + op;
     }
 }
@@ -2,9 +2,11 @@ package instructions;
 
 import util.Register;
 
-public class Operand2 {
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
-    public static Operand2 any = new Operand2();
+public class Operand2 {
 
     private boolean isReg = false;
     private boolean isImm = false;
@@ -18,8 +20,8 @@ public class Operand2 {
     private boolean isStr = false;
     private String s;
     
-    private boolean asr;
-    private int asrVal;
+    private String shift;
+    private int shiftVal;
 
     public Operand2(Register reg) {
         this.reg = reg;
@@ -55,8 +57,20 @@ public class Operand2 {
     }
 
     public void setAsr(int asr) {
-        this.asr = true;
-        this.asrVal = asr;
+        setShift("ASR", asr);
+    }
+
+    public void setLsl(int lsl) {
+        setShift("LSL", lsl);
+    }
+
+    public void setLsr(int lsr) {
+        setShift("LSR", lsr);
+    }
+
+    private void setShift(String shift, int shiftVal) {
+        this.shift = shift;
+        this.shiftVal = shiftVal;
     }
 
     public Register getReg() {
@@ -67,11 +81,41 @@ public class Operand2 {
         return offset;
     }
 
+    /*
+     * Whether this is the address in a register plus an offset, as loads read
+     */
+    public boolean isAddress() {
+        return isReg && isImm;
+    }
+
+    /*
+     * Whether this is a constant encoded in the instruction, such as #4
+     */
+    public boolean isImmediate() {
+        return isInt && iChar == '#';
+    }
+
+    public int getImmediate() {
+        return i;
+    }
+
+    /*
+     * Gets the registers read when this operand is evaluated
+     */
+    public List<Register> getUses() {
+        if(isReg) return Collections.singletonList(reg);
+        return Collections.emptyList();
+    }
+
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        if(isReg) reg = Instruction.replace(reg, mapping);
+    }
+
     @Override
     public String toString() {
         if(isReg) {
             if(isImm) return "[" + reg + (offset != 0 ? ", #" + offset : "") + "]";
-            if(asr) return reg + ", ASR #" + asrVal;
+            if(shift != null) return reg + ", " + shift + " #" + shiftVal;
             return reg.toString();
         }
         if(isInt) return iChar + "" + i;
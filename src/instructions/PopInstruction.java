@@ -1,21 +1,50 @@
 package instructions;
 
-import sun.security.jgss.spi.GSSNameSpi;
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 public class PopInstruction extends Instruction {
-    private Register r;
 
-    public PopInstruction(Register r) {
-        this.r = r;
+    // registers in ascending order, as they are laid out in memory
+    private List<Register> regs;
+
+    public PopInstruction(Register... regs) {
+        this(Arrays.asList(regs));
+    }
+
+    public PopInstruction(List<Register> regs) {
+        this.regs = new ArrayList<>(regs);
     }
 
+    /*
+     * Gets the first register popped, which is the only one for a single register pop
+     */
     public Register getReg() {
-        return r;
+        return regs.get(0);
+    }
+
+    public List<Register> getRegs() {
+        return regs;
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        return regs;
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        for(int i = 0; i < regs.size(); i++) {
+            regs.set(i, replace(regs.get(i), mapping));
+        }
     }
 
     @Override
     public String toCode() {
-        return "POP {" + r.toString() + "}";
+        return "POP " + registerList(regs);
     }
 }
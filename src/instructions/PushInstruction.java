@@ -2,16 +2,42 @@ package instructions;
 
 import util.Register;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 public class PushInstruction extends Instruction {
 
-    private Register r;
+    // registers in ascending order, as they are laid out in memory
+    private List<Register> regs;
+
+    public PushInstruction(Register... regs) {
+        this(Arrays.asList(regs));
+    }
+
+    public PushInstruction(List<Register> regs) {
+        this.regs = new ArrayList<>(regs);
+    }
 
-    public PushInstruction(Register r) {
-        this.r = r;
+    public List<Register> getRegs() {
+        return regs;
+    }
+
+    @Override
+    public List<Register> getUses() {
+        return regs;
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        for(int i = 0; i < regs.size(); i++) {
+            regs.set(i, replace(regs.get(i), mapping));
+        }
     }
 
     @Override
     public String toCode() {
-        return "PUSH {" + r.toString() + "}";
+        return "PUSH " + registerList(regs);
     }
 }
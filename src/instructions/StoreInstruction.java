@@ -3,13 +3,21 @@ package instructions;
 import sun.security.jgss.spi.GSSNameSpi;
 import util.Register;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class StoreInstruction extends Instruction {
-    private final Register rSrc;
-    private final Register rDest;
+    private Register rSrc;
+    private Register rDest;
     private final int offset;
     private boolean isByte = false;
     private boolean preIndex = false;
 
+    // how far a post indexed store moves its base register on after writing, or 0 if it does not
+    private int postIndex = 0;
+
     public StoreInstruction(Register rSrc, Register rDst, int offset) {
         this.rSrc = rSrc;
         this.rDest = rDst;
@@ -36,13 +44,44 @@ public class StoreInstruction extends Instruction {
         preIndex = true;
     }
 
+    public boolean isPreIndex() {
+        return preIndex;
+    }
+
+    public void setPostIndex(int postIndex) {
+        this.postIndex = postIndex;
+    }
+
+    public int getPostIndex() {
+        return postIndex;
+    }
+
     public int getOffset() {
         return offset;
     }
 
+    @Override
+    public List<Register> getUses() {
+        return Arrays.asList(rSrc, rDest);
+    }
+
+    @Override
+    public List<Register> getDefs() {
+        // a pre or post indexed store writes an address back to its base register
+        if(preIndex || postIndex != 0) return Collections.singletonList(rDest);
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void replaceRegisters(Map<Register, Register> mapping) {
+        rSrc = replace(rSrc, mapping);
+        rDest = replace(rDest, mapping);
+    }
+
     @Override
     public String toCode() {
         return (!isByte ? "STR " : "STRB ") + rSrc + ", "
-                + "[" + rDest + (offset != 0 ? ", " + "#" + offset + "]" : "]") + (preIndex ? "!" : "");
+                + "[" + rDest + (offset != 0 ? ", " + "#" + offset + "]" : "]") + (preIndex ? "!" : "")
+                + (postIndex != 0 ? ", #" + postIndex : "");
     }
 }
@@ -0,0 +1,565 @@
+package ir;
+
+import instructions.*;
+import util.Arm11Program;
+import util.Register;
+import util.Registers;
+
+/*
+ * Translates the IR of a program into ARM instructions, still over virtual registers, which
+ * the register allocator places afterwards. Constants are used as immediates where ARM allows
+ * it and loaded into a new register where it does not, and each runtime function is added to
+ * the program the first time a call to it is lowered.
+ *
+ * Runtime checks call a function that makes the check unless they are inlined, in which case the
+ * compare is made at each use and only a failing check branches out, to report its error
+ */
+public class Arm11Lowering {
+
+    // parameters start above the saved frame pointer and return address
+    private static final int PARAM_OFFSET = 8;
+    private static final int WORD_SIZE = 4;
+    private static final int LSL_VALUE_2 = 2;
+
+    private static final String DIVIDE_NAME = "__aeabi_idiv";
+    private static final String MODULO_NAME = "__aeabi_idivmod";
+
+    private final IrProgram program;
+    private final Arm11Program state;
+
+    private boolean inlineChecks = false;
+
+    public Arm11Lowering(IrProgram program, Arm11Program state) {
+        this.program = program;
+        this.state = state;
+    }
+
+    public void setInlineChecks(boolean inlineChecks) {
+        this.inlineChecks = inlineChecks;
+    }
+
+    public Arm11Program lower() {
+        for(IrFunction func : program.getFunctions()) {
+            lower(func);
+        }
+        state.add(new TextDirective());
+        state.add(new GlobalDirective("main"));
+        return state;
+    }
+
+    private void lower(IrFunction func) {
+        state.startUserFunction(func.getName());
+
+        // the first parameter is pushed last so is lowest
+        int offset = PARAM_OFFSET;
+        for(int i = 0; i < func.getParams().size(); i++) {
+            int size = func.getParamSize(i);
+            state.add(new LoadInstruction(func.getParams().get(i), new Operand2(Registers.fp, offset), size == 1));
+            offset += size;
+        }
+
+        for(BasicBlock block : func.getBlocks()) {
+            if(block.getLabel() != null) state.add(new LabelInstruction(block.getLabel()));
+            for(IrInstruction ins : block.getInstructions()) {
+                lower(ins);
+            }
+        }
+
+        state.endUserFunction();
+    }
+
+    private void lower(IrInstruction ins) {
+        if(ins instanceof Copy) {
+            Copy copy = (Copy) ins;
+            moveTo(copy.getDest(), copy.getSrc());
+        } else if(ins instanceof LoadString) {
+            LoadString string = (LoadString) ins;
+            String label = string.isShared() ? state.getMsgLabel(string.getText()) : state.addMsgLabel(string.getText());
+            state.add(new LoadInstruction(string.getDest(), new Operand2(label)));
+        } else if(ins instanceof BinaryOp) {
+            lowerBinaryOp((BinaryOp) ins);
+        } else if(ins instanceof UnaryOp) {
+            lowerUnaryOp((UnaryOp) ins);
+        } else if(ins instanceof Load) {
+            Load load = (Load) ins;
+            Operand2 address = new Operand2(toRegister(load.getBase()), load.getOffset());
+            state.add(new LoadInstruction(load.getDest(), address, load.isByte()));
+        } else if(ins instanceof Store) {
+            Store store = (Store) ins;
+            Register src = toRegister(store.getSrc());
+            state.add(new StoreInstruction(src, toRegister(store.getBase()), store.getOffset(), store.isByte()));
+        } else if(ins instanceof ElementAddress) {
+            lowerElementAddress((ElementAddress) ins);
+        } else if(ins instanceof CheckBounds) {
+            lowerCheckBounds((CheckBounds) ins);
+        } else if(ins instanceof CheckNull) {
+            lowerCheckNull((CheckNull) ins);
+        } else if(ins instanceof Call) {
+            Call call = (Call) ins;
+            for(int i = 0; i < call.getArgs().size(); i++) {
+                moveTo(Register.get(i), call.getArgs().get(i));
+            }
+            call(call.getFunction());
+            if(call.getDest() != null) state.add(new MoveInstruction(call.getDest(), Registers.r0));
+        } else if(ins instanceof FunctionCall) {
+            lowerFunctionCall((FunctionCall) ins);
+        } else if(ins instanceof Read) {
+            lowerRead((Read) ins);
+        } else if(ins instanceof Jump) {
+            state.add(new BranchInstruction(ins.getTarget()));
+        } else if(ins instanceof Branch) {
+            lowerBranch((Branch) ins);
+        } else if(ins instanceof Return) {
+            Value value = ((Return) ins).getValue();
+            if(value != null) moveTo(Registers.r0, value);
+            state.addReturn();
+        } else {
+            throw new IllegalStateException("Can not lower " + ins.getClass().getSimpleName());
+        }
+    }
+
+    private void lowerBinaryOp(BinaryOp ins) {
+        Register dest = ins.getDest();
+        switch(ins.getOp()) {
+            case ADD:
+                AddInstruction add = new AddInstruction(dest, toRegister(ins.getLhs()), toOperand2(ins.getRhs()));
+                add.setFlags = ins.isChecked();
+                state.add(add);
+                if(ins.isChecked()) addOverflowCheck(new BranchLinkOverflowInstruction(Arm11Program.OVERFLOW_NAME));
+                break;
+            case SUB:
+                SubInstruction sub = new SubInstruction(dest, toRegister(ins.getLhs()), toOperand2(ins.getRhs()));
+                sub.setFlags = ins.isChecked();
+                state.add(sub);
+                if(ins.isChecked()) addOverflowCheck(new BranchLinkOverflowInstruction(Arm11Program.OVERFLOW_NAME));
+                break;
+            case MUL:
+                if(ins.getRhs().isConstant() && lowerMultiplyBy(dest, ins.getLhs(), ins.getRhs().getConstant(), ins.isChecked())
+                        || ins.getLhs().isConstant() && lowerMultiplyBy(dest, ins.getRhs(), ins.getLhs().getConstant(), ins.isChecked())) {
+                    break;
+                }
+                if(!ins.isChecked()) {
+                    state.add(new MultiplyInstruction(dest, toRegister(ins.getLhs()), toRegister(ins.getRhs())));
+                    break;
+                }
+                // the high word of the product must just be the sign of the low word
+                Register high = program.newTemp();
+                state.add(new MultiplyInstruction(dest, high, toRegister(ins.getLhs()), toRegister(ins.getRhs())));
+                Operand2 sign = new Operand2(dest);
+                sign.setAsr(31);
+                state.add(new CompareInstruction(high, sign));
+                addOverflowCheck(new BranchLinkNotEqualInstruction(Arm11Program.OVERFLOW_NAME));
+                break;
+            case DIV:
+            case MOD:
+                if(ins.getRhs().isConstant() && ins.getRhs().getConstant() != 0) {
+                    lowerDivideBy(ins.getOp(), dest, toRegister(ins.getLhs()), ins.getRhs().getConstant());
+                    break;
+                }
+                moveTo(Registers.r0, ins.getLhs());
+                moveTo(Registers.r1, ins.getRhs());
+                if(ins.isChecked() && inlineChecks) {
+                    state.add(new CompareInstruction(Registers.r1, new Operand2('#', 0)));
+                    state.add(new BranchLinkEqualInstruction(Arm11Program.DIVIDE_BY_ZERO_ERROR_NAME));
+                    addRuntimeFunction(Arm11Program.DIVIDE_BY_ZERO_ERROR_NAME);
+                } else if(ins.isChecked()) {
+                    call(Arm11Program.DIVIDE_BY_ZERO_NAME);
+                }
+                if(ins.getOp() == BinaryOp.Operator.DIV) {
+                    state.add(new BranchLinkInstruction(DIVIDE_NAME));
+                    state.add(new MoveInstruction(dest, Registers.r0));
+                } else {
+                    state.add(new BranchLinkInstruction(MODULO_NAME));
+                    state.add(new MoveInstruction(dest, Registers.r1));
+                }
+                break;
+            case AND:
+                state.add(new AndInstruction(dest, toRegister(ins.getLhs()), toOperand2(ins.getRhs())));
+                break;
+            case OR:
+                state.add(new OrInstruction(dest, toRegister(ins.getLhs()), toOperand2(ins.getRhs())));
+                break;
+            default:
+                state.add(new CompareInstruction(toRegister(ins.getLhs()), toOperand2(ins.getRhs())));
+                state.add(new MoveInstruction(dest, 0));
+                state.add(moveIf(ins.getOp().getCondition(), dest, new Operand2('#', 1)));
+        }
+    }
+
+    /*
+     * Multiplies [value] by a constant [factor] with a shift, or an add or reverse subtract of a
+     * shift, returning false if it needs a multiply instead. A checked power of 2 is checked by
+     * shifting the product back, as it only fits if that gives [value] again
+     */
+    private boolean lowerMultiplyBy(Register dest, Value value, int factor, boolean checked) {
+        if(value.isConstant() || factor <= 1) return false;
+        Register src = value.getRegister();
+
+        if(Integer.bitCount(factor) == 1) {
+            int shift = Integer.numberOfTrailingZeros(factor);
+            if(checked && shift == 1) {
+                AddInstruction add = new AddInstruction(dest, src, new Operand2(src));
+                add.setFlags = true;
+                state.add(add);
+                addOverflowCheck(new BranchLinkOverflowInstruction(Arm11Program.OVERFLOW_NAME));
+                return true;
+            }
+            // [src] is still needed for the check after the product is written
+            Register product = checked && dest.equals(src) ? program.newTemp() : dest;
+            Operand2 shifted = new Operand2(src);
+            shifted.setLsl(shift);
+            state.add(new MoveInstruction(product, shifted));
+            if(checked) {
+                Operand2 back = new Operand2(product);
+                back.setAsr(shift);
+                state.add(new CompareInstruction(src, back));
+                addOverflowCheck(new BranchLinkNotEqualInstruction(Arm11Program.OVERFLOW_NAME));
+                if(product != dest) state.add(new MoveInstruction(dest, product));
+            }
+            return true;
+        }
+        if(checked) return false;
+
+        if(Integer.bitCount(factor - 1) == 1) {
+            state.add(new AddInstruction(dest, src, new Operand2(src), Integer.numberOfTrailingZeros(factor - 1)));
+        } else if(Integer.bitCount(factor + 1) == 1) {
+            Operand2 shifted = new Operand2(src);
+            shifted.setLsl(Integer.numberOfTrailingZeros(factor + 1));
+            NegateInstruction subtract = new NegateInstruction(dest, src, shifted);
+            subtract.setFlags = false;
+            state.add(subtract);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /*
+     * Divides [dividend] by a constant [divisor] other than 0, rounding towards 0, or for MOD
+     * takes the remainder, which has the sign of the dividend. No check is needed, and the most
+     * negative number divided by -1 gives itself, as __aeabi_idiv does.
+     *
+     * A power of 2 is an arithmetic shift, after adding 2^k - 1 to negative dividends so they round
+     * towards 0. Any other divisor d is a multiply by m = 2^(32 + s) / d, rounded up, keeping the
+     * high word of the product shifted right by s, then adding 1 for negative dividends
+     */
+    private void lowerDivideBy(BinaryOp.Operator op, Register dest, Register dividend, int divisor) {
+        boolean isDivide = op == BinaryOp.Operator.DIV;
+        long size = Math.abs((long) divisor);
+        if(size == 1) {
+            if(!isDivide) {
+                state.add(new MoveInstruction(dest, 0));
+            } else if(divisor == 1) {
+                state.add(new MoveInstruction(dest, dividend));
+            } else {
+                NegateInstruction negate = new NegateInstruction(dest, dividend, new Operand2('#', 0));
+                negate.setFlags = false;
+                state.add(negate);
+            }
+            return;
+        }
+
+        // a remainder is worked out from the quotient by the size of the divisor
+        Register quotient = isDivide && divisor > 0 ? dest : program.newTemp();
+        if(Long.bitCount(size) == 1) {
+            int shift = Long.numberOfTrailingZeros(size);
+            Register biased = program.newTemp();
+            Operand2 bias;
+            if(shift == 1) {
+                bias = new Operand2(dividend);
+            } else {
+                Register sign = program.newTemp();
+                Operand2 signBits = new Operand2(dividend);
+                signBits.setAsr(31);
+                state.add(new MoveInstruction(sign, signBits));
+                bias = new Operand2(sign);
+            }
+            bias.setLsr(32 - shift);
+            state.add(new AddInstruction(biased, dividend, bias));
+            Operand2 shifted = new Operand2(biased);
+            shifted.setAsr(shift);
+            state.add(new MoveInstruction(quotient, shifted));
+            if(!isDivide) {
+                Operand2 multiple = new Operand2(quotient);
+                multiple.setLsl(shift);
+                state.add(new SubInstruction(dest, dividend, multiple));
+                return;
+            }
+        } else {
+            int[] magic = magic((int) size);
+            Register low = program.newTemp();
+            Register high = program.newTemp();
+            state.add(new MultiplyInstruction(low, high, dividend, toRegister(Value.constant(magic[0]))));
+            // m is above the largest int, so was multiplied as m - 2^32
+            if(magic[0] < 0) state.add(new AddInstruction(high, high, new Operand2(dividend)));
+            if(magic[1] > 0) {
+                Operand2 shifted = new Operand2(high);
+                shifted.setAsr(magic[1]);
+                state.add(new MoveInstruction(high, shifted));
+            }
+            Operand2 sign = new Operand2(dividend);
+            sign.setLsr(31);
+            state.add(new AddInstruction(quotient, high, sign));
+        }
+
+        if(!isDivide) {
+            Register multiple = program.newTemp();
+            state.add(new MultiplyInstruction(multiple, quotient, toRegister(Value.constant((int) size))));
+            state.add(new SubInstruction(dest, dividend, new Operand2(multiple)));
+        } else if(divisor < 0) {
+            NegateInstruction negate = new NegateInstruction(dest, quotient, new Operand2('#', 0));
+            negate.setFlags = false;
+            state.add(negate);
+        }
+    }
+
+    /*
+     * Gets the multiplier m and shift s that divide by [divisor], at least 3 and not a power of 2,
+     * the smallest s for which m = 2^(32 + s) / d rounded up gives the right quotient for every int.
+     * From Hacker's Delight, section 10-4
+     */
+    private static int[] magic(int divisor) {
+        final long two31 = 1L << 31;
+        long anc = two31 - 1 - two31 % divisor;
+        int p = 31;
+        long q1 = two31 / anc;
+        long r1 = two31 - q1 * anc;
+        long q2 = two31 / divisor;
+        long r2 = two31 - q2 * divisor;
+        long delta;
+        do {
+            p++;
+            q1 *= 2;
+            r1 *= 2;
+            if(r1 >= anc) {
+                q1++;
+                r1 -= anc;
+            }
+            q2 *= 2;
+            r2 *= 2;
+            if(r2 >= divisor) {
+                q2++;
+                r2 -= divisor;
+            }
+            delta = divisor - r2;
+        } while(q1 < delta || q1 == delta && r1 == 0);
+        return new int[] {(int) (q2 + 1), p - 32};
+    }
+
+    private void lowerUnaryOp(UnaryOp ins) {
+        Register src = toRegister(ins.getSrc());
+        switch(ins.getOp()) {
+            case NEG:
+                NegateInstruction negate = new NegateInstruction(ins.getDest(), src, new Operand2('#', 0));
+                negate.setFlags = ins.isChecked();
+                state.add(negate);
+                if(ins.isChecked()) addOverflowCheck(new BranchLinkOverflowInstruction(Arm11Program.OVERFLOW_NAME));
+                break;
+            case NOT:
+                state.add(new ExclusiveOrInstruction(ins.getDest(), src, new Operand2('#', 1)));
+                break;
+        }
+    }
+
+    /*
+     * Checks the index is at least 0 and below the length of the array, the word its register points at
+     */
+    private void lowerCheckBounds(CheckBounds check) {
+        if(!inlineChecks) {
+            moveTo(Registers.r0, check.getIndex());
+            moveTo(Registers.r1, check.getArray());
+            call(Arm11Program.ARRAY_BOUND_NAME);
+            return;
+        }
+
+        Register index = toRegister(check.getIndex());
+        if(!check.getIndex().isConstant() || check.getIndex().getConstant() < 0) {
+            state.add(new CompareInstruction(index, new Operand2('#', 0)));
+            state.add(new BranchLinkLessThanInstruction(Arm11Program.NEGATIVE_INDEX_ERROR_NAME));
+            addRuntimeFunction(Arm11Program.NEGATIVE_INDEX_ERROR_NAME);
+        }
+        Register length = program.newTemp();
+        state.add(new LoadInstruction(length, new Operand2(toRegister(check.getArray()), true)));
+        state.add(new CompareInstruction(index, new Operand2(length)));
+        state.add(new BranchLinkCarrySetInstruction(Arm11Program.INDEX_TOO_LARGE_ERROR_NAME));
+        addRuntimeFunction(Arm11Program.INDEX_TOO_LARGE_ERROR_NAME);
+    }
+
+    private void lowerCheckNull(CheckNull check) {
+        if(!inlineChecks) {
+            moveTo(Registers.r0, check.getRef());
+            call(Arm11Program.NULL_PTR_NAME);
+            return;
+        }
+        state.add(new CompareInstruction(toRegister(check.getRef()), new Operand2('#', 0)));
+        state.add(new BranchLinkEqualInstruction(Arm11Program.NULL_PTR_ERROR_NAME));
+        addRuntimeFunction(Arm11Program.NULL_PTR_ERROR_NAME);
+    }
+
+    /*
+     * Elements start after the length, and a constant index is folded into the offset
+     */
+    private void lowerElementAddress(ElementAddress ins) {
+        Register dest = ins.getDest();
+        Register array = toRegister(ins.getArray());
+        Value index = ins.getIndex();
+        if(index.isConstant()) {
+            long offset = WORD_SIZE + (long) index.getConstant() * (ins.isByte() ? 1 : WORD_SIZE);
+            if(offset == (int) offset && isImmediate((int) offset)) {
+                state.add(new AddInstruction(dest, array, new Operand2('#', (int) offset)));
+                return;
+            }
+        }
+        state.add(new AddInstruction(dest, array, new Operand2('#', WORD_SIZE)));
+        if(ins.isByte()) {
+            state.add(new AddInstruction(dest, dest, new Operand2(toRegister(index))));
+        } else {
+            state.add(new AddInstruction(dest, dest, new Operand2(toRegister(index)), LSL_VALUE_2));
+        }
+    }
+
+    /*
+     * Pushes each argument with the size of its parameter, last argument first, and pops them
+     * all again after the call
+     */
+    private void lowerFunctionCall(FunctionCall ins) {
+        int argsSize = 0;
+        for(int i = ins.getArgs().size() - 1; i >= 0; i--) {
+            int size = ins.getArgSize(i);
+            StoreInstruction push = new StoreInstruction(toRegister(ins.getArgs().get(i)), Registers.sp, -size, size == 1);
+            push.setPreIndex();
+            state.add(push);
+            argsSize += size;
+        }
+        state.add(new BranchLinkInstruction(ins.getFunction()));
+        if(argsSize != 0) state.add(new AddInstruction(Registers.sp, Registers.sp, new Operand2('#', argsSize)));
+        if(ins.getDest() != null) state.add(new MoveInstruction(ins.getDest(), Registers.r0));
+    }
+
+    /*
+     * A variable is read through a word pushed for it, as reading needs an address
+     */
+    private void lowerRead(Read ins) {
+        Register var = ins.getDest();
+        StoreInstruction push = new StoreInstruction(var, Registers.sp, -WORD_SIZE);
+        push.setPreIndex();
+        state.add(push);
+        state.add(new MoveInstruction(Registers.r0, Registers.sp));
+        call(ins.isChar() ? Arm11Program.READ_CHAR_NAME : Arm11Program.READ_INT_NAME);
+        state.add(new LoadInstruction(var, new Operand2(Registers.sp, 0), ins.isChar()));
+        state.add(new AddInstruction(Registers.sp, Registers.sp, new Operand2('#', WORD_SIZE)));
+    }
+
+    /*
+     * A constant is moved to the right of the compare, where it can be an immediate
+     */
+    private void lowerBranch(Branch ins) {
+        Condition cond = ins.getCond();
+        Value lhs = ins.getLhs();
+        Value rhs = ins.getRhs();
+        if(lhs.isConstant() && !rhs.isConstant()) {
+            cond = cond.swap();
+            lhs = ins.getRhs();
+            rhs = ins.getLhs();
+        }
+        state.add(new CompareInstruction(toRegister(lhs), toOperand2(rhs)));
+        state.add(branchIf(cond, ins.getTarget()));
+    }
+
+    private static Instruction branchIf(Condition cond, String label) {
+        switch(cond) {
+            case EQ: return new BranchEqualInstruction(label);
+            case NE: return new BranchNotEqualInstruction(label);
+            case LT: return new BranchLessThanInstruction(label);
+            case LE: return new BranchLessThanEqualInstruction(label);
+            case GT: return new BranchGreaterThanInstruction(label);
+            default: return new BranchGreaterThanEqualInstruction(label);
+        }
+    }
+
+    private static Instruction moveIf(Condition cond, Register dest, Operand2 op) {
+        switch(cond) {
+            case EQ: return new MoveEqualInstruction(dest, op);
+            case NE: return new MoveNotEqualInstruction(dest, op);
+            case LT: return new MoveLessThanInstruction(dest, op);
+            case LE: return new MoveLessThanEqualInstruction(dest, op);
+            case GT: return new MoveGreaterThanInstruction(dest, op);
+            default: return new MoveGreaterThanEqualInstruction(dest, op);
+        }
+    }
+
+    private void addOverflowCheck(Instruction branch) {
+        state.add(branch);
+        addRuntimeFunction(Arm11Program.OVERFLOW_NAME);
+    }
+
+    private void call(String function) {
+        state.add(new BranchLinkInstruction(function));
+        addRuntimeFunction(function);
+    }
+
+    /*
+     * Adds the runtime function called [name] if it has not been added yet
+     * Functions from the C library, such as malloc, are linked in instead
+     */
+    private void addRuntimeFunction(String name) {
+        if(state.functionDeclared(name)) return;
+        switch(name) {
+            case Arm11Program.PRINT_STRING_NAME: state.addPrintString(); break;
+            case Arm11Program.PRINT_BOOL_NAME: state.addPrintBool(); break;
+            case Arm11Program.PRINT_INT_NAME: state.addPrintInt(); break;
+            case Arm11Program.PRINT_REF_NAME: state.addPrintRef(); break;
+            case Arm11Program.PRINTLN_NAME: state.addPrintlnFunc(); break;
+            case Arm11Program.READ_INT_NAME: state.addReadInt(); break;
+            case Arm11Program.READ_CHAR_NAME: state.addReadChar(); break;
+            case Arm11Program.ARRAY_BOUND_NAME: state.addArrayBoundError(); break;
+            case Arm11Program.OVERFLOW_NAME: state.addOverflowError(); break;
+            case Arm11Program.DIVIDE_BY_ZERO_NAME: state.addDivideByZeroError(); break;
+            case Arm11Program.RUNTIME_ERR_NAME: state.addRuntimeErrFunction(); break;
+            case Arm11Program.FREE_PAIR_NAME: state.addFreePair(); break;
+            case Arm11Program.NULL_PTR_NAME: state.addNullPtrError(); break;
+            case Arm11Program.NEGATIVE_INDEX_ERROR_NAME:
+            case Arm11Program.INDEX_TOO_LARGE_ERROR_NAME:
+            case Arm11Program.DIVIDE_BY_ZERO_ERROR_NAME:
+            case Arm11Program.NULL_PTR_ERROR_NAME: state.addErrorFunction(name); break;
+        }
+    }
+
+    /*
+     * Sets [dest] to [value]
+     */
+    private void moveTo(Register dest, Value value) {
+        if(!value.isConstant()) {
+            state.add(new MoveInstruction(dest, value.getRegister()));
+        } else if(isImmediate(value.getConstant())) {
+            state.add(new MoveInstruction(dest, value.getConstant()));
+        } else {
+            state.add(new LoadInstruction(dest, new Operand2(value.getConstant())));
+        }
+    }
+
+    /*
+     * Gets a register holding [value], loading a constant into a new one
+     */
+    private Register toRegister(Value value) {
+        if(!value.isConstant()) return value.getRegister();
+        Register reg = program.newTemp();
+        moveTo(reg, value);
+        return reg;
+    }
+
+    private Operand2 toOperand2(Value value) {
+        if(value.isConstant() && isImmediate(value.getConstant())) return new Operand2('#', value.getConstant());
+        return new Operand2(toRegister(value));
+    }
+
+    /*
+     * Whether [value] can be encoded in an instruction, as an 8 bit value rotated right by an even amount
+     */
+    public static boolean isImmediate(int value) {
+        for(int rotation = 0; rotation < 32; rotation += 2) {
+            if((Integer.rotateLeft(value, rotation) & ~0xFF) == 0) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A straight line sequence of IR instructions that is only entered at the top. Only the last
+ * instruction may jump, and a block that does not end with a terminator falls through to the
+ * block after it in its function
+ */
+public class BasicBlock {
+
+    private final String label;
+    private final List<IrInstruction> instructions = new ArrayList<>();
+
+    public BasicBlock(String label) {
+        this.label = label;
+    }
+
+    /*
+     * Gets the label jumps to this block use, or null if it is only reached by falling through
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    public List<IrInstruction> getInstructions() {
+        return instructions;
+    }
+
+    public boolean isEmpty() {
+        return instructions.isEmpty();
+    }
+
+    public IrInstruction getLast() {
+        return instructions.isEmpty() ? null : instructions.get(instructions.size() - 1);
+    }
+
+    /*
+     * Whether control can run off the end of this block into the next one
+     */
+    public boolean fallsThrough() {
+        IrInstruction last = getLast();
+        return last == null || !last.isTerminator();
+    }
+
+    public boolean isClosed() {
+        IrInstruction last = getLast();
+        return last != null && last.endsBlock();
+    }
+
+    public void add(IrInstruction ins) {
+        instructions.add(ins);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder block = new StringBuilder();
+        if(label != null) block.append(label).append(":\n");
+        for(IrInstruction ins : instructions) block.append('\t').append(ins).append('\n');
+        return block.toString();
+    }
+}
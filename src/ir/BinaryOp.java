@@ -0,0 +1,91 @@
+package ir;
+
+import util.Register;
+
+/*
+ * dest = lhs op rhs
+ * A checked operation stops the program with a runtime error if it overflows, or for division
+ * and modulo, if the divisor is zero. Comparisons give 1 if they hold and 0 if not
+ */
+public class BinaryOp extends IrInstruction {
+
+    public enum Operator {
+        ADD("+"), SUB("-"), MUL("*"), DIV("/"), MOD("%"), AND("&&"), OR("||"),
+        EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /*
+         * Gets the condition a comparison tests, or null if this is not a comparison
+         */
+        public Condition getCondition() {
+            switch(this) {
+                case EQ: return Condition.EQ;
+                case NE: return Condition.NE;
+                case LT: return Condition.LT;
+                case LE: return Condition.LE;
+                case GT: return Condition.GT;
+                case GE: return Condition.GE;
+                default: return null;
+            }
+        }
+
+        /*
+         * Whether the operation may fail at runtime, so is checked unless shown not to fail
+         */
+        public boolean canFail() {
+            return this == ADD || this == SUB || this == MUL || this == DIV || this == MOD;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    private Operator op;
+    private boolean checked;
+
+    public BinaryOp(Operator op, Register dest, Value lhs, Value rhs) {
+        super(dest, lhs, rhs);
+        this.op = op;
+        this.checked = op.canFail();
+    }
+
+    public Operator getOp() {
+        return op;
+    }
+
+    public void setOp(Operator op) {
+        this.op = op;
+    }
+
+    public Value getLhs() {
+        return getOperand(0);
+    }
+
+    public Value getRhs() {
+        return getOperand(1);
+    }
+
+    public boolean isChecked() {
+        return checked;
+    }
+
+    public void setChecked(boolean checked) {
+        this.checked = checked;
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return checked;
+    }
+
+    @Override
+    public String toString() {
+        return destString() + getLhs() + " " + op.getSymbol() + " " + getRhs() + (checked ? " (checked)" : "");
+    }
+}
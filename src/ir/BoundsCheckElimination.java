@@ -0,0 +1,42 @@
+package ir;
+
+import java.util.List;
+
+/*
+ * Removes array bounds checks that can never fail, using what RangeAnalysis finds about indices
+ * and array lengths.
+ *
+ * A check is removed if its index is at least 0 and either below the length of its array or
+ * below a constant known to be the length. Every other check is kept, so accesses that can be out
+ * of bounds still stop the program with an ArrayIndexOutOfBoundsError
+ */
+public class BoundsCheckElimination extends IrPass {
+
+    public BoundsCheckElimination() {
+        super("bounds check elimination");
+    }
+
+    @Override
+    public void run(IrFunction func) {
+        ControlFlowGraph cfg = new ControlFlowGraph(func);
+        RangeAnalysis ranges = new RangeAnalysis(cfg);
+
+        for(BasicBlock block : cfg.getReversePostorder()) {
+            RangeAnalysis.State state = ranges.getIn(block);
+            if(state == null) continue;
+            List<IrInstruction> instructions = block.getInstructions();
+            for(int i = 0; i < instructions.size(); i++) {
+                IrInstruction ins = instructions.get(i);
+                if(ins instanceof CheckBounds && isSafe(state, (CheckBounds) ins)) {
+                    instructions.remove(i--);
+                    continue;
+                }
+                state.transfer(ins);
+            }
+        }
+    }
+
+    private static boolean isSafe(RangeAnalysis.State state, CheckBounds check) {
+        return state.range(check.getIndex()).getLo() >= 0 && state.isBelowLength(check.getIndex(), check.getArray());
+    }
+}
@@ -0,0 +1,57 @@
+package ir;
+
+/*
+ * Continues at the block labelled target if lhs and rhs satisfy the condition, or at the next
+ * block if not
+ */
+public class Branch extends IrInstruction {
+
+    private Condition cond;
+    private String target;
+
+    public Branch(Condition cond, Value lhs, Value rhs, String target) {
+        super(null, lhs, rhs);
+        this.cond = cond;
+        this.target = target;
+    }
+
+    public Condition getCond() {
+        return cond;
+    }
+
+    public void setCond(Condition cond) {
+        this.cond = cond;
+    }
+
+    public Value getLhs() {
+        return getOperand(0);
+    }
+
+    public Value getRhs() {
+        return getOperand(1);
+    }
+
+    @Override
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
+    @Override
+    public boolean endsBlock() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "if " + getLhs() + " " + cond.getSymbol() + " " + getRhs() + " goto " + target;
+    }
+}
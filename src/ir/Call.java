@@ -0,0 +1,68 @@
+package ir;
+
+import util.Arm11Program;
+import util.Register;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * dest = function(args), calling a library or runtime function with its arguments in r0 - r3
+ * dest can be null if the result is not used
+ */
+public class Call extends IrInstruction {
+
+    public static final int MAX_ARGS = 4;
+    public static final String EXIT_NAME = "exit";
+    public static final String MALLOC_NAME = "malloc";
+
+    // functions that only read memory, which leave values loaded before them up to date
+    private static final Set<String> READ_ONLY = new HashSet<>(Arrays.asList(
+            Arm11Program.PRINT_STRING_NAME, Arm11Program.PRINT_BOOL_NAME, Arm11Program.PRINT_INT_NAME,
+            Arm11Program.PRINT_REF_NAME, Arm11Program.PRINTLN_NAME, Arm11Program.PRINT_CHAR_NAME, EXIT_NAME));
+
+    private final String function;
+
+    public Call(Register dest, String function, Value... args) {
+        super(dest, args);
+        if(args.length > MAX_ARGS) {
+            throw new IllegalArgumentException("Too many arguments passed to " + function);
+        }
+        this.function = function;
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    public List<Value> getArgs() {
+        return getOperands();
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
+    /*
+     * Whether the function may write memory the program can read, which malloc counts as doing
+     */
+    public boolean writesMemory() {
+        return !READ_ONLY.contains(function);
+    }
+
+    /*
+     * Calling exit never returns, so ends the block
+     */
+    @Override
+    public boolean isTerminator() {
+        return function.equals(EXIT_NAME);
+    }
+
+    @Override
+    public String toString() {
+        return destString() + "call " + function + getArgs();
+    }
+}
@@ -0,0 +1,29 @@
+package ir;
+
+/*
+ * Stops the program with an ArrayIndexOutOfBoundsError unless 0 <= index < the length of array
+ */
+public class CheckBounds extends IrInstruction {
+
+    public CheckBounds(Value index, Value array) {
+        super(null, index, array);
+    }
+
+    public Value getIndex() {
+        return getOperand(0);
+    }
+
+    public Value getArray() {
+        return getOperand(1);
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "check " + getIndex() + " in " + getArray();
+    }
+}
@@ -0,0 +1,25 @@
+package ir;
+
+/*
+ * Stops the program with a NullReferenceError if ref is null
+ */
+public class CheckNull extends IrInstruction {
+
+    public CheckNull(Value ref) {
+        super(null, ref);
+    }
+
+    public Value getRef() {
+        return getOperand(0);
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "check " + getRef() + " != null";
+    }
+}
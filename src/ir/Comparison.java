@@ -0,0 +1,96 @@
+package ir;
+
+import util.Register;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * A condition known to hold between two values, such as what a branch says on one of its edges
+ */
+public class Comparison {
+
+    private final Condition cond;
+    private final Value lhs;
+    private final Value rhs;
+
+    public Comparison(Condition cond, Value lhs, Value rhs) {
+        this.cond = cond;
+        this.lhs = lhs;
+        this.rhs = rhs;
+    }
+
+    public Condition getCond() {
+        return cond;
+    }
+
+    public Value getLhs() {
+        return lhs;
+    }
+
+    public Value getRhs() {
+        return rhs;
+    }
+
+    /*
+     * Gets the comparisons that hold whenever control goes from [from] to [to]. These are the
+     * condition of the branch ending [from], or its negation, and if the branch tests the result
+     * of a comparison made earlier in [from], that comparison or its negation
+     * The list is empty if the edge is taken whatever the values are
+     */
+    public static List<Comparison> onEdge(ControlFlowGraph cfg, BasicBlock from, BasicBlock to) {
+        List<Comparison> held = new ArrayList<>(2);
+        if(!(from.getLast() instanceof Branch)) return held;
+        Branch branch = (Branch) from.getLast();
+
+        // a branch to the next block goes there either way
+        boolean taken = branch.getTarget().equals(to.getLabel());
+        List<BasicBlock> blocks = cfg.getBlocks();
+        if(taken && blocks.indexOf(from) + 1 == blocks.indexOf(to)) return held;
+
+        Condition cond = taken ? branch.getCond() : branch.getCond().negate();
+        held.add(new Comparison(cond, branch.getLhs(), branch.getRhs()));
+
+        if(branch.getLhs().isConstant() || !branch.getRhs().isConstant()) return held;
+        BinaryOp flag = findComparison(from, branch.getLhs().getRegister());
+        if(flag == null) return held;
+
+        // the flag is 1 if the comparison held and 0 if not
+        int k = branch.getRhs().getConstant();
+        boolean ifTrue = cond.test(1, k);
+        boolean ifFalse = cond.test(0, k);
+        if(ifTrue != ifFalse) {
+            Condition flagCond = flag.getOp().getCondition();
+            held.add(new Comparison(ifTrue ? flagCond : flagCond.negate(), flag.getLhs(), flag.getRhs()));
+        }
+        return held;
+    }
+
+    /*
+     * Gets the comparison in [block] that wrote [flag] for its last instruction to read, if its
+     * operands still hold the values it compared
+     */
+    private static BinaryOp findComparison(BasicBlock block, Register flag) {
+        List<IrInstruction> instructions = block.getInstructions();
+        Set<Register> written = new HashSet<>();
+        for(int i = instructions.size() - 2; i >= 0; i--) {
+            IrInstruction ins = instructions.get(i);
+            if(flag.equals(ins.getDest())) {
+                if(!(ins instanceof BinaryOp) || ((BinaryOp) ins).getOp().getCondition() == null) return null;
+                for(Register reg : ins.getUses()) {
+                    if(written.contains(reg)) return null;
+                }
+                return (BinaryOp) ins;
+            }
+            if(ins.getDest() != null) written.add(ins.getDest());
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return lhs + " " + cond.getSymbol() + " " + rhs;
+    }
+}
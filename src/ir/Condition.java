@@ -0,0 +1,56 @@
+package ir;
+
+/*
+ * A signed comparison between two integers, as used by comparisons and conditional branches
+ */
+public enum Condition {
+    EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+    private final String symbol;
+
+    Condition(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /*
+     * Gets the condition that holds exactly when this one does not
+     */
+    public Condition negate() {
+        switch(this) {
+            case EQ: return NE;
+            case NE: return EQ;
+            case LT: return GE;
+            case LE: return GT;
+            case GT: return LE;
+            default: return LT;
+        }
+    }
+
+    /*
+     * Gets the condition that holds for (b, a) exactly when this one holds for (a, b)
+     */
+    public Condition swap() {
+        switch(this) {
+            case LT: return GT;
+            case LE: return GE;
+            case GT: return LT;
+            case GE: return LE;
+            default: return this;
+        }
+    }
+
+    public boolean test(int lhs, int rhs) {
+        switch(this) {
+            case EQ: return lhs == rhs;
+            case NE: return lhs != rhs;
+            case LT: return lhs < rhs;
+            case LE: return lhs <= rhs;
+            case GT: return lhs > rhs;
+            default: return lhs >= rhs;
+        }
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+}
@@ -0,0 +1,283 @@
+package ir;
+
+import util.Register;
+
+import java.util.*;
+
+/*
+ * Works out which registers hold a known constant at each point of a function, replaces their
+ * uses with the constant, and evaluates operations whose operands are all known, with WACC's
+ * 32 bit semantics. An operation that would overflow or divide by zero is left as it is, so it
+ * still stops the program when it runs, and branches on known values become jumps or are dropped.
+ *
+ * Registers are assigned more than once, so this is a forward dataflow over the control flow
+ * graph: a register is known at the start of a block if every predecessor that has been
+ * visited so far leaves it with the same constant
+ */
+public class ConstantFolding extends IrPass {
+
+    public ConstantFolding() {
+        super("constant folding");
+    }
+
+    @Override
+    public void run(IrFunction func) {
+        // folding a branch can leave code unreachable, which may make more registers known
+        boolean changed;
+        do {
+            ControlFlowGraph cfg = new ControlFlowGraph(func);
+            changed = rewrite(cfg, analyse(cfg));
+        } while(changed);
+    }
+
+    /*
+     * Gets the constants known at the start of each reachable block
+     */
+    private Map<BasicBlock, Map<Register, Integer>> analyse(ControlFlowGraph cfg) {
+        Map<BasicBlock, Map<Register, Integer>> in = new HashMap<>();
+        Map<BasicBlock, Map<Register, Integer>> out = new HashMap<>();
+
+        boolean changed;
+        do {
+            changed = false;
+            for(BasicBlock block : cfg.getReversePostorder()) {
+                Map<Register, Integer> known = meet(cfg.getPredecessors(block), out);
+                in.put(block, new HashMap<>(known));
+                for(IrInstruction ins : block.getInstructions()) transfer(ins, known);
+
+                if(!known.equals(out.get(block))) {
+                    out.put(block, known);
+                    changed = true;
+                }
+            }
+        } while(changed);
+        return in;
+    }
+
+    /*
+     * Keeps the constants every visited predecessor agrees on, where a block that has not been
+     * visited yet can only be reached around a loop, so the loop is first assumed not to change them
+     */
+    private static Map<Register, Integer> meet(List<BasicBlock> predecessors, Map<BasicBlock, Map<Register, Integer>> out) {
+        Map<Register, Integer> known = null;
+        for(BasicBlock predecessor : predecessors) {
+            Map<Register, Integer> other = out.get(predecessor);
+            if(other == null) continue;
+            if(known == null) {
+                known = new HashMap<>(other);
+            } else {
+                known.entrySet().retainAll(other.entrySet());
+            }
+        }
+        return known != null ? known : new HashMap<Register, Integer>();
+    }
+
+    private static void transfer(IrInstruction ins, Map<Register, Integer> known) {
+        if(ins.getDest() == null) return;
+        Integer value = evaluate(ins, known);
+        if(value != null) {
+            known.put(ins.getDest(), value);
+        } else {
+            known.remove(ins.getDest());
+        }
+    }
+
+    private boolean rewrite(ControlFlowGraph cfg, Map<BasicBlock, Map<Register, Integer>> in) {
+        boolean changed = false;
+        for(BasicBlock block : cfg.getReversePostorder()) {
+            Map<Register, Integer> known = in.get(block);
+            List<IrInstruction> instructions = block.getInstructions();
+
+            for(int i = 0; i < instructions.size(); i++) {
+                IrInstruction ins = instructions.get(i);
+
+                // a read keeps the old value of its variable if nothing is read, so needs it in a register
+                if(!(ins instanceof Read) && substitute(ins, known)) changed = true;
+
+                if(ins instanceof Branch) {
+                    Branch branch = (Branch) ins;
+                    if(branch.getLhs().isConstant() && !branch.getRhs().isConstant()) {
+                        Value lhs = branch.getLhs();
+                        branch.setOperand(0, branch.getRhs());
+                        branch.setOperand(1, lhs);
+                        branch.setCond(branch.getCond().swap());
+                    }
+                    Boolean taken = decide(branch);
+                    if(taken != null) {
+                        changed = true;
+                        if(taken) {
+                            instructions.set(i, new Jump(ins.getTarget()));
+                        } else {
+                            instructions.remove(i--);
+                        }
+                        continue;
+                    }
+                }
+
+                IrInstruction simplified = simplify(ins, known);
+                if(simplified != ins) {
+                    changed = true;
+                    instructions.set(i, simplified);
+                    ins = simplified;
+                }
+                transfer(ins, known);
+            }
+        }
+        return changed;
+    }
+
+    /*
+     * Replaces each operand of [ins] with a known value with the value
+     */
+    private boolean substitute(IrInstruction ins, Map<Register, Integer> known) {
+        boolean changed = false;
+        for(int i = 0; i < ins.getOperands().size(); i++) {
+            Value operand = ins.getOperand(i);
+            if(operand == null || operand.isConstant()) continue;
+            Integer value = known.get(operand.getRegister());
+            if(value != null) {
+                ins.setOperand(i, Value.constant(value));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /*
+     * Gets whether [branch] is always taken, or null if that depends on values not known here
+     */
+    private static Boolean decide(Branch branch) {
+        Value lhs = branch.getLhs();
+        Value rhs = branch.getRhs();
+        if(lhs.isConstant() && rhs.isConstant()) {
+            return branch.getCond().test(lhs.getConstant(), rhs.getConstant());
+        }
+        if(lhs.equals(rhs)) {
+            return branch.getCond().test(0, 0);
+        }
+        return null;
+    }
+
+    /*
+     * Gets an instruction that does the same as [ins] more cheaply, or [ins] itself if there is none
+     * Known results become copies of a constant, operations that leave an operand unchanged become
+     * copies of it, and a constant operand of a commutative operation is moved to the right, where
+     * it can be an immediate
+     */
+    private static IrInstruction simplify(IrInstruction ins, Map<Register, Integer> known) {
+        if(ins instanceof Copy) return ins;
+
+        Integer value = evaluate(ins, known);
+        if(value != null) return new Copy(ins.getDest(), Value.constant(value));
+
+        if(!(ins instanceof BinaryOp)) return ins;
+        BinaryOp op = (BinaryOp) ins;
+        if(op.getLhs().isConstant() && !op.getRhs().isConstant() && swap(op.getOp()) != null) {
+            op = new BinaryOp(swap(op.getOp()), op.getDest(), op.getRhs(), op.getLhs());
+            op.setChecked(((BinaryOp) ins).isChecked());
+        }
+        if(!op.getRhs().isConstant()) return op;
+
+        int rhs = op.getRhs().getConstant();
+        switch(op.getOp()) {
+            case ADD:
+            case SUB:
+            case OR:
+                if(rhs == 0) return new Copy(op.getDest(), op.getLhs());
+                break;
+            case MUL:
+            case DIV:
+            case AND:
+                if(rhs == 1) return new Copy(op.getDest(), op.getLhs());
+                break;
+        }
+        return op;
+    }
+
+    /*
+     * Gets the operator that gives the same result with its operands swapped, or null if there is none
+     */
+    private static BinaryOp.Operator swap(BinaryOp.Operator op) {
+        switch(op) {
+            case ADD: case MUL: case AND: case OR: case EQ: case NE: return op;
+            case LT: return BinaryOp.Operator.GT;
+            case LE: return BinaryOp.Operator.GE;
+            case GT: return BinaryOp.Operator.LT;
+            case GE: return BinaryOp.Operator.LE;
+            default: return null;
+        }
+    }
+
+    /*
+     * Gets the value [ins] always writes to its destination, or null if it is not known or [ins]
+     * stops the program with a runtime error
+     */
+    private static Integer evaluate(IrInstruction ins, Map<Register, Integer> known) {
+        if(ins instanceof Copy) {
+            return valueOf(((Copy) ins).getSrc(), known);
+        } else if(ins instanceof UnaryOp) {
+            UnaryOp op = (UnaryOp) ins;
+            Integer src = valueOf(op.getSrc(), known);
+            if(src == null) return null;
+            if(op.getOp() == UnaryOp.Operator.NOT) return src ^ 1;
+            if(src == Integer.MIN_VALUE && op.isChecked()) return null;
+            return -src;
+        } else if(ins instanceof BinaryOp) {
+            BinaryOp op = (BinaryOp) ins;
+            Integer lhs = valueOf(op.getLhs(), known);
+            Integer rhs = valueOf(op.getRhs(), known);
+            if(lhs != null && rhs != null) return fold(op, lhs, rhs);
+            return evaluatePartial(op, lhs, rhs);
+        }
+        return null;
+    }
+
+    private static Integer valueOf(Value value, Map<Register, Integer> known) {
+        return value.isConstant() ? Integer.valueOf(value.getConstant()) : known.get(value.getRegister());
+    }
+
+    /*
+     * Evaluates [op] on two known operands, or gets null if it overflows or divides by zero when checked
+     */
+    private static Integer fold(BinaryOp op, int lhs, int rhs) {
+        long result;
+        switch(op.getOp()) {
+            case ADD: result = (long) lhs + rhs; break;
+            case SUB: result = (long) lhs - rhs; break;
+            case MUL: result = (long) lhs * rhs; break;
+            case DIV:
+            case MOD:
+                if(rhs == 0) return null;
+                // the runtime gives the dividend back for MIN_VALUE / -1, as Java does
+                return op.getOp() == BinaryOp.Operator.DIV ? lhs / rhs : lhs % rhs;
+            case AND: return lhs & rhs;
+            case OR: return lhs | rhs;
+            default: return op.getOp().getCondition().test(lhs, rhs) ? 1 : 0;
+        }
+        if(result != (int) result && op.isChecked()) return null;
+        return (int) result;
+    }
+
+    /*
+     * Evaluates [op] when at most one operand is known, which gives a constant for multiplying by
+     * zero, for boolean operators with a dominating operand, and when both operands are the same register
+     */
+    private static Integer evaluatePartial(BinaryOp op, Integer lhs, Integer rhs) {
+        if(lhs == null && rhs == null) {
+            if(!op.getLhs().equals(op.getRhs())) return null;
+            switch(op.getOp()) {
+                case SUB: return 0;
+                case EQ: case LE: case GE: return 1;
+                case NE: case LT: case GT: return 0;
+                default: return null;
+            }
+        }
+        Integer known = lhs != null ? lhs : rhs;
+        switch(op.getOp()) {
+            case MUL: return known == 0 ? Integer.valueOf(0) : null;
+            case AND: return known == 0 ? Integer.valueOf(0) : null;
+            case OR: return known == 1 ? Integer.valueOf(1) : null;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package ir;
+
+import java.util.*;
+
+/*
+ * The successors and predecessors of each block of a function, with its dominator tree and
+ * natural loops. The graph is a snapshot, so a pass that changes the blocks or the jumps
+ * between them has to build a new one afterwards
+ */
+public class ControlFlowGraph {
+
+    private final IrFunction func;
+    private final List<BasicBlock> blocks;
+    private final Map<BasicBlock, Integer> index = new HashMap<>();
+
+    private final List<List<BasicBlock>> successors = new ArrayList<>();
+    private final List<List<BasicBlock>> predecessors = new ArrayList<>();
+
+    // reachable blocks, each before all of its successors other than through back edges
+    private final List<BasicBlock> reversePostorder = new ArrayList<>();
+    private final int[] postorderNumber;
+
+    // index of the immediate dominator of each block, the entry is its own and unreachable blocks have -1
+    private final int[] idom;
+    private final List<List<BasicBlock>> dominated = new ArrayList<>();
+
+    private final List<Loop> loops = new ArrayList<>();
+    private final Map<BasicBlock, Loop> innermostLoop = new HashMap<>();
+
+    public ControlFlowGraph(IrFunction func) {
+        this.func = func;
+        this.blocks = new ArrayList<>(func.getBlocks());
+        for(int i = 0; i < blocks.size(); i++) {
+            index.put(blocks.get(i), i);
+            successors.add(new ArrayList<BasicBlock>(2));
+            predecessors.add(new ArrayList<BasicBlock>(2));
+            dominated.add(new ArrayList<BasicBlock>());
+        }
+        postorderNumber = new int[blocks.size()];
+        idom = new int[blocks.size()];
+
+        linkBlocks();
+        orderBlocks();
+        findDominators();
+        findLoops();
+    }
+
+    public IrFunction getFunction() {
+        return func;
+    }
+
+    /*
+     * Gets every block, reachable or not, in layout order
+     */
+    public List<BasicBlock> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    public List<BasicBlock> getSuccessors(BasicBlock block) {
+        return Collections.unmodifiableList(successors.get(indexOf(block)));
+    }
+
+    public List<BasicBlock> getPredecessors(BasicBlock block) {
+        return Collections.unmodifiableList(predecessors.get(indexOf(block)));
+    }
+
+    /*
+     * Gets the reachable blocks in reverse postorder, so a forward dataflow analysis visiting
+     * them in this order sees every predecessor of a block before it, except around loops
+     */
+    public List<BasicBlock> getReversePostorder() {
+        return Collections.unmodifiableList(reversePostorder);
+    }
+
+    public boolean isReachable(BasicBlock block) {
+        return idom[indexOf(block)] >= 0;
+    }
+
+    /*
+     * Gets the block every path from the entry to [block] passes through last, or null for the
+     * entry and unreachable blocks
+     */
+    public BasicBlock getImmediateDominator(BasicBlock block) {
+        int i = indexOf(block);
+        return idom[i] < 0 || idom[i] == i ? null : blocks.get(idom[i]);
+    }
+
+    /*
+     * Gets the blocks immediately dominated by [block], its children in the dominator tree
+     */
+    public List<BasicBlock> getDominatorChildren(BasicBlock block) {
+        return Collections.unmodifiableList(dominated.get(indexOf(block)));
+    }
+
+    /*
+     * Whether every path from the entry to [b] passes through [a], every block dominates itself
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        int target = indexOf(a);
+        int i = indexOf(b);
+        if(idom[i] < 0 || idom[target] < 0) return false;
+        while(i != target) {
+            if(idom[i] == i) return false;
+            i = idom[i];
+        }
+        return true;
+    }
+
+    /*
+     * Gets every natural loop, outer loops before the loops nested in them
+     */
+    public List<Loop> getLoops() {
+        return Collections.unmodifiableList(loops);
+    }
+
+    /*
+     * Gets the innermost loop containing [block], or null if it is in no loop
+     */
+    public Loop getLoop(BasicBlock block) {
+        return innermostLoop.get(block);
+    }
+
+    public int getLoopDepth(BasicBlock block) {
+        Loop loop = innermostLoop.get(block);
+        return loop == null ? 0 : loop.getDepth();
+    }
+
+    /*
+     * Gets the only block outside [loop] that goes to its header, if that block goes nowhere else,
+     * so code placed at its end runs exactly once each time the loop is entered. Returns null if
+     * the loop has no such block
+     */
+    public BasicBlock getPreheader(Loop loop) {
+        BasicBlock preheader = null;
+        for(BasicBlock predecessor : getPredecessors(loop.getHeader())) {
+            if(loop.contains(predecessor)) continue;
+            if(preheader != null) return null;
+            preheader = predecessor;
+        }
+        if(preheader == null || getSuccessors(preheader).size() != 1) return null;
+        return preheader;
+    }
+
+    private int indexOf(BasicBlock block) {
+        Integer i = index.get(block);
+        if(i == null) {
+            throw new IllegalArgumentException("Block " + block.getLabel() + " is not in " + func.getName());
+        }
+        return i;
+    }
+
+    /*
+     * A block goes to the target of its last instruction if it jumps, and to the next block if
+     * it can fall through
+     */
+    private void linkBlocks() {
+        Map<String, BasicBlock> labels = new HashMap<>();
+        for(BasicBlock block : blocks) {
+            if(block.getLabel() != null) labels.put(block.getLabel(), block);
+        }
+
+        for(int i = 0; i < blocks.size(); i++) {
+            BasicBlock block = blocks.get(i);
+            IrInstruction last = block.getLast();
+            if(last != null && last.getTarget() != null) {
+                BasicBlock target = labels.get(last.getTarget());
+                if(target == null) {
+                    throw new IllegalStateException("Jump to missing label " + last.getTarget() + " in " + func.getName());
+                }
+                addEdge(i, indexOf(target));
+            }
+            if(block.fallsThrough() && i + 1 < blocks.size()) addEdge(i, i + 1);
+        }
+    }
+
+    private void addEdge(int from, int to) {
+        if(successors.get(from).contains(blocks.get(to))) return;
+        successors.get(from).add(blocks.get(to));
+        predecessors.get(to).add(blocks.get(from));
+    }
+
+    /*
+     * Numbers the reachable blocks in postorder by a depth first search from the entry, which is
+     * done with an explicit stack as functions can have very many blocks
+     */
+    private void orderBlocks() {
+        Arrays.fill(postorderNumber, -1);
+        boolean[] visited = new boolean[blocks.size()];
+        Deque<int[]> stack = new ArrayDeque<>();
+        List<BasicBlock> postorder = new ArrayList<>();
+
+        visited[0] = true;
+        stack.push(new int[] {0, 0});
+        while(!stack.isEmpty()) {
+            int[] top = stack.peek();
+            List<BasicBlock> next = successors.get(top[0]);
+            if(top[1] < next.size()) {
+                int successor = indexOf(next.get(top[1]++));
+                if(!visited[successor]) {
+                    visited[successor] = true;
+                    stack.push(new int[] {successor, 0});
+                }
+            } else {
+                stack.pop();
+                postorderNumber[top[0]] = postorder.size();
+                postorder.add(blocks.get(top[0]));
+            }
+        }
+
+        for(int i = postorder.size() - 1; i >= 0; i--) {
+            reversePostorder.add(postorder.get(i));
+        }
+    }
+
+    /*
+     * Finds immediate dominators by iterating to a fixed point in reverse postorder, as in
+     * "A Simple, Fast Dominance Algorithm" by Cooper, Harvey and Kennedy
+     */
+    private void findDominators() {
+        Arrays.fill(idom, -1);
+        idom[0] = 0;
+
+        boolean changed;
+        do {
+            changed = false;
+            for(BasicBlock block : reversePostorder) {
+                int b = indexOf(block);
+                if(b == 0) continue;
+
+                int newIdom = -1;
+                for(BasicBlock predecessor : predecessors.get(b)) {
+                    int p = indexOf(predecessor);
+                    if(idom[p] < 0) continue;
+                    newIdom = newIdom < 0 ? p : intersect(p, newIdom);
+                }
+                if(idom[b] != newIdom) {
+                    idom[b] = newIdom;
+                    changed = true;
+                }
+            }
+        } while(changed);
+
+        for(int i = 1; i < blocks.size(); i++) {
+            if(idom[i] >= 0) dominated.get(idom[i]).add(blocks.get(i));
+        }
+    }
+
+    private int intersect(int b1, int b2) {
+        while(b1 != b2) {
+            while(postorderNumber[b1] < postorderNumber[b2]) b1 = idom[b1];
+            while(postorderNumber[b2] < postorderNumber[b1]) b2 = idom[b2];
+        }
+        return b1;
+    }
+
+    /*
+     * An edge to a block that dominates its source is a back edge, and the loop it closes is its
+     * target with every block that reaches the source without passing through the target
+     * Loops with the same header are merged into one
+     */
+    private void findLoops() {
+        Map<BasicBlock, Loop> byHeader = new LinkedHashMap<>();
+        for(BasicBlock block : reversePostorder) {
+            for(BasicBlock successor : successors.get(indexOf(block))) {
+                if(!dominates(successor, block)) continue;
+
+                Loop loop = byHeader.get(successor);
+                if(loop == null) {
+                    loop = new Loop(successor);
+                    byHeader.put(successor, loop);
+                }
+                loop.addLatch(block);
+
+                Deque<BasicBlock> work = new ArrayDeque<>();
+                if(loop.add(block)) work.push(block);
+                while(!work.isEmpty()) {
+                    for(BasicBlock predecessor : predecessors.get(indexOf(work.pop()))) {
+                        if(isReachable(predecessor) && loop.add(predecessor)) work.push(predecessor);
+                    }
+                }
+            }
+        }
+
+        // larger loops first, so each loop's parent is found before it and is the smallest enclosing one
+        loops.addAll(byHeader.values());
+        Collections.sort(loops, new Comparator<Loop>() {
+            @Override
+            public int compare(Loop l1, Loop l2) {
+                return l2.getBlocks().size() - l1.getBlocks().size();
+            }
+        });
+        for(int i = 0; i < loops.size(); i++) {
+            Loop loop = loops.get(i);
+            for(int j = i - 1; j >= 0; j--) {
+                if(loops.get(j).contains(loop.getHeader())) {
+                    loop.setParent(loops.get(j));
+                    break;
+                }
+            }
+            for(BasicBlock block : loop.getBlocks()) innermostLoop.put(block, loop);
+        }
+
+        // keep the blocks of each loop in layout order
+        for(Loop loop : loops) {
+            loop.sortBlocks(index);
+        }
+
+        // each loop leaves through the successors of its blocks that are outside it
+        for(Loop loop : loops) {
+            for(BasicBlock block : loop.getBlocks()) {
+                for(BasicBlock successor : successors.get(indexOf(block))) {
+                    if(!loop.contains(successor)) loop.addExit(block, successor);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder graph = new StringBuilder(func.getName()).append(":\n");
+        for(BasicBlock block : blocks) {
+            graph.append('\t').append(name(block)).append(" ->");
+            for(BasicBlock successor : getSuccessors(block)) graph.append(' ').append(name(successor));
+            BasicBlock dominator = getImmediateDominator(block);
+            if(dominator != null) graph.append(", idom ").append(name(dominator));
+            if(!isReachable(block)) graph.append(", unreachable");
+            if(getLoopDepth(block) > 0) graph.append(", loop depth ").append(getLoopDepth(block));
+            graph.append('\n');
+        }
+        return graph.toString();
+    }
+
+    /*
+     * Gets the label of [block], or its position in the function if it has none
+     */
+    public String name(BasicBlock block) {
+        return block.getLabel() != null ? block.getLabel() : "#" + indexOf(block);
+    }
+}
@@ -0,0 +1,22 @@
+package ir;
+
+import util.Register;
+
+/*
+ * dest = src
+ */
+public class Copy extends IrInstruction {
+
+    public Copy(Register dest, Value src) {
+        super(dest, src);
+    }
+
+    public Value getSrc() {
+        return getOperand(0);
+    }
+
+    @Override
+    public String toString() {
+        return destString() + getSrc();
+    }
+}
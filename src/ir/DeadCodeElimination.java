@@ -0,0 +1,162 @@
+package ir;
+
+import util.Register;
+
+import java.util.*;
+
+/*
+ * Removes blocks that can not be reached, instructions whose results are never read and that
+ * have no other effect, jumps to the block that follows anyway, and functions that are never
+ * called. Variables live in registers, so a dead assignment to a variable is removed the same
+ * way as any other dead instruction
+ */
+public class DeadCodeElimination extends IrPass {
+
+    public DeadCodeElimination() {
+        super("dead code elimination");
+    }
+
+    @Override
+    public void run(IrProgram program) {
+        super.run(program);
+        removeUncalledFunctions(program);
+    }
+
+    @Override
+    public void run(IrFunction func) {
+        boolean changed;
+        do {
+            changed = removeUnreachableBlocks(func);
+            changed |= removeDeadInstructions(new ControlFlowGraph(func));
+            changed |= removeRedundantJumps(func);
+            changed |= removeEmptyBlocks(func);
+        } while(changed);
+    }
+
+    private static boolean removeUnreachableBlocks(IrFunction func) {
+        ControlFlowGraph cfg = new ControlFlowGraph(func);
+        boolean changed = false;
+        for(Iterator<BasicBlock> blocks = func.getBlocks().iterator(); blocks.hasNext(); ) {
+            if(!cfg.isReachable(blocks.next())) {
+                blocks.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /*
+     * Walks each block backwards from the registers live out of it, dropping instructions that
+     * write a register that is not live, and results of calls that are not used
+     */
+    private static boolean removeDeadInstructions(ControlFlowGraph cfg) {
+        LiveVariables liveness = new LiveVariables(cfg);
+        boolean changed = false;
+
+        for(BasicBlock block : cfg.getReversePostorder()) {
+            Set<Register> live = new HashSet<>(liveness.getLiveOut(block));
+            List<IrInstruction> instructions = block.getInstructions();
+
+            for(int i = instructions.size() - 1; i >= 0; i--) {
+                IrInstruction ins = instructions.get(i);
+                Register dest = ins.getDest();
+                if(dest != null && !live.contains(dest)) {
+                    if(!ins.hasSideEffects()) {
+                        instructions.remove(i);
+                        changed = true;
+                        continue;
+                    }
+                    if(ins instanceof Call || ins instanceof FunctionCall) {
+                        ins.setDest(null);
+                        changed = true;
+                    }
+                }
+                if(isSelfCopy(ins)) {
+                    instructions.remove(i);
+                    changed = true;
+                    continue;
+                }
+
+                if(ins.getDest() != null) live.remove(ins.getDest());
+                live.addAll(ins.getUses());
+            }
+        }
+        return changed;
+    }
+
+    private static boolean isSelfCopy(IrInstruction ins) {
+        return ins instanceof Copy && Value.of(ins.getDest()).equals(((Copy) ins).getSrc());
+    }
+
+    /*
+     * Removes jumps and branches to a block that control reaches by falling through anyway,
+     * because only empty blocks come between
+     */
+    private static boolean removeRedundantJumps(IrFunction func) {
+        List<BasicBlock> blocks = func.getBlocks();
+        boolean changed = false;
+        for(int i = 0; i + 1 < blocks.size(); i++) {
+            IrInstruction last = blocks.get(i).getLast();
+            if(!(last instanceof Jump || last instanceof Branch)) continue;
+
+            for(int j = i + 1; j < blocks.size(); j++) {
+                if(last.getTarget().equals(blocks.get(j).getLabel())) {
+                    List<IrInstruction> instructions = blocks.get(i).getInstructions();
+                    instructions.remove(instructions.size() - 1);
+                    changed = true;
+                    break;
+                }
+                if(!blocks.get(j).isEmpty()) break;
+            }
+        }
+        return changed;
+    }
+
+    /*
+     * Removes empty blocks other than the entry that nothing jumps to, which only fall through
+     */
+    private static boolean removeEmptyBlocks(IrFunction func) {
+        Set<String> targets = new HashSet<>();
+        for(BasicBlock block : func.getBlocks()) {
+            IrInstruction last = block.getLast();
+            if(last != null && last.getTarget() != null) targets.add(last.getTarget());
+        }
+
+        boolean changed = false;
+        List<BasicBlock> blocks = func.getBlocks();
+        for(int i = blocks.size() - 1; i > 0; i--) {
+            BasicBlock block = blocks.get(i);
+            if(block.isEmpty() && !targets.contains(block.getLabel())) {
+                blocks.remove(i);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /*
+     * Removes every function that main can not reach through calls
+     */
+    private static void removeUncalledFunctions(IrProgram program) {
+        Set<String> called = new HashSet<>();
+        Deque<IrFunction> work = new ArrayDeque<>();
+        IrFunction main = program.getFunction("main");
+        if(main == null) return;
+        called.add(main.getName());
+        work.push(main);
+
+        while(!work.isEmpty()) {
+            for(BasicBlock block : work.pop().getBlocks()) {
+                for(IrInstruction ins : block.getInstructions()) {
+                    if(!(ins instanceof FunctionCall)) continue;
+                    IrFunction callee = program.getFunction(((FunctionCall) ins).getFunction());
+                    if(callee != null && called.add(callee.getName())) work.push(callee);
+                }
+            }
+        }
+
+        for(String name : new ArrayList<>(program.getFunctionNames())) {
+            if(!called.contains(name)) program.removeFunction(name);
+        }
+    }
+}
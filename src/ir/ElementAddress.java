@@ -0,0 +1,34 @@
+package ir;
+
+import util.Register;
+
+/*
+ * dest = the address of element [index] of [array], which is after the length at the start of
+ * the array, with elements of one byte or one word
+ */
+public class ElementAddress extends IrInstruction {
+
+    private final boolean isByte;
+
+    public ElementAddress(Register dest, Value array, Value index, boolean isByte) {
+        super(dest, array, index);
+        this.isByte = isByte;
+    }
+
+    public Value getArray() {
+        return getOperand(0);
+    }
+
+    public Value getIndex() {
+        return getOperand(1);
+    }
+
+    public boolean isByte() {
+        return isByte;
+    }
+
+    @Override
+    public String toString() {
+        return destString() + "&" + getArray() + "[" + getIndex() + "]" + (isByte ? " byte" : "");
+    }
+}
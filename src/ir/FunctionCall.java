@@ -0,0 +1,43 @@
+package ir;
+
+import util.Register;
+
+import java.util.List;
+
+/*
+ * dest = function(args), calling a function of the program, which takes its arguments on the stack
+ * Each argument is pushed with the size of its parameter, last argument first
+ */
+public class FunctionCall extends IrInstruction {
+
+    private final String function;
+    private final int[] argSizes;
+
+    public FunctionCall(Register dest, String function, Value[] args, int[] argSizes) {
+        super(dest, args);
+        this.function = function;
+        this.argSizes = argSizes;
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    public List<Value> getArgs() {
+        return getOperands();
+    }
+
+    public int getArgSize(int i) {
+        return argSizes[i];
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return destString() + "call " + function + getArgs();
+    }
+}
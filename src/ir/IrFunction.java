@@ -0,0 +1,89 @@
+package ir;
+
+import util.Register;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * The IR of one function, as its parameters and a list of basic blocks in layout order
+ * The first block is the entry, and instructions are always added to the last block
+ */
+public class IrFunction {
+
+    private final String name;
+
+    // the register each parameter is loaded into on entry and its size on the stack, in order
+    private final List<Register> params = new ArrayList<>();
+    private final List<Integer> paramSizes = new ArrayList<>();
+
+    private final List<BasicBlock> blocks = new ArrayList<>();
+
+    public IrFunction(String name) {
+        this.name = name;
+        blocks.add(new BasicBlock(null));
+    }
+
+    /*
+     * Gets the label the function is called by, e.g. main or f_fib
+     */
+    public String getName() {
+        return name;
+    }
+
+    public void addParam(Register reg, int size) {
+        params.add(reg);
+        paramSizes.add(size);
+    }
+
+    public List<Register> getParams() {
+        return Collections.unmodifiableList(params);
+    }
+
+    public int getParamSize(int i) {
+        return paramSizes.get(i);
+    }
+
+    public List<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    /*
+     * Adds [ins] to the end of the function, starting a new unlabelled block if the last one
+     * has already ended with a jump
+     */
+    public void add(IrInstruction ins) {
+        BasicBlock last = blocks.get(blocks.size() - 1);
+        if(last.isClosed()) {
+            last = new BasicBlock(null);
+            blocks.add(last);
+        }
+        last.add(ins);
+    }
+
+    /*
+     * Starts a new block called [label], which the last block falls through to if it can
+     */
+    public BasicBlock startBlock(String label) {
+        BasicBlock block = new BasicBlock(label);
+        blocks.add(block);
+        return block;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder func = new StringBuilder(name).append('(');
+        for(int i = 0; i < params.size(); i++) {
+            if(i != 0) func.append(", ");
+            func.append(params.get(i));
+        }
+        func.append("):\n");
+        for(BasicBlock block : blocks) func.append(block);
+        return func.toString();
+    }
+}
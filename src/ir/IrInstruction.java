@@ -0,0 +1,103 @@
+package ir;
+
+import util.Register;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A three address instruction over virtual registers. Each instruction writes at most one
+ * register, its destination, and reads a fixed list of operands, so passes can inspect and
+ * rewrite any instruction without knowing its class
+ */
+public abstract class IrInstruction {
+
+    private Register dest;
+    private final Value[] operands;
+
+    protected IrInstruction(Register dest, Value... operands) {
+        this.dest = dest;
+        this.operands = operands;
+    }
+
+    /*
+     * Gets the register this instruction writes, or null if it writes none
+     */
+    public Register getDest() {
+        return dest;
+    }
+
+    public void setDest(Register dest) {
+        this.dest = dest;
+    }
+
+    public List<Value> getOperands() {
+        return Collections.unmodifiableList(Arrays.asList(operands));
+    }
+
+    public Value getOperand(int i) {
+        return operands[i];
+    }
+
+    public void setOperand(int i, Value value) {
+        operands[i] = value;
+    }
+
+    /*
+     * Gets the registers whose values this instruction reads
+     */
+    public List<Register> getUses() {
+        List<Register> uses = new ArrayList<>(operands.length);
+        for(Value operand : operands) {
+            if(operand != null && !operand.isConstant()) uses.add(operand.getRegister());
+        }
+        return uses;
+    }
+
+    /*
+     * Replaces each operand held in a register that is a key of [mapping] with its value
+     */
+    public void replaceUses(Map<Register, Value> mapping) {
+        for(int i = 0; i < operands.length; i++) {
+            if(operands[i] == null || operands[i].isConstant()) continue;
+            Value replacement = mapping.get(operands[i].getRegister());
+            if(replacement != null) operands[i] = replacement;
+        }
+    }
+
+    /*
+     * Whether this instruction must be kept even if nothing reads its destination, because it
+     * writes memory, calls out, transfers control or may stop the program with a runtime error
+     */
+    public boolean hasSideEffects() {
+        return false;
+    }
+
+    /*
+     * Whether control never continues to the next instruction, so this must end its block
+     */
+    public boolean isTerminator() {
+        return false;
+    }
+
+    /*
+     * Whether this instruction may transfer control somewhere other than the next instruction
+     */
+    public boolean endsBlock() {
+        return isTerminator();
+    }
+
+    /*
+     * Gets the label of the block control may jump to, or null if it never jumps
+     */
+    public String getTarget() {
+        return null;
+    }
+
+    protected String destString() {
+        return dest != null ? dest + " = " : "";
+    }
+}
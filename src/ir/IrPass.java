@@ -0,0 +1,50 @@
+package ir;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * An optimisation that transforms the IR of one function at a time, before it is lowered
+ */
+public abstract class IrPass {
+
+    private final String name;
+
+    // counts of what the pass did in the last program it ran on, keyed by what was counted
+    private final Map<String, Integer> stats = new LinkedHashMap<>();
+
+    protected IrPass(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void run(IrProgram program) {
+        stats.clear();
+        for(IrFunction func : program.getFunctions()) run(func);
+    }
+
+    public abstract void run(IrFunction func);
+
+    /*
+     * Gets what the pass counted in the last program it ran on
+     */
+    public Map<String, Integer> getStats() {
+        return stats;
+    }
+
+    /*
+     * Adds [n] to the count of [stat]
+     */
+    protected void count(String stat, int n) {
+        Integer old = stats.get(stat);
+        stats.put(stat, (old != null ? old : 0) + n);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
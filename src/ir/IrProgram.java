@@ -0,0 +1,54 @@
+package ir;
+
+import util.Register;
+import util.Registers;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * The IR of a whole program, its functions in the order they are emitted, with main first
+ * Virtual registers are numbered across the whole program, so lowering can add more of them
+ */
+public class IrProgram {
+
+    private final Map<String, IrFunction> functions = new LinkedHashMap<>();
+    private final Registers registers = new Registers();
+
+    public IrFunction addFunction(String name) {
+        IrFunction func = new IrFunction(name);
+        functions.put(name, func);
+        return func;
+    }
+
+    public Collection<IrFunction> getFunctions() {
+        return functions.values();
+    }
+
+    public IrFunction getFunction(String name) {
+        return functions.get(name);
+    }
+
+    public Collection<String> getFunctionNames() {
+        return functions.keySet();
+    }
+
+    public void removeFunction(String name) {
+        functions.remove(name);
+    }
+
+    /*
+     * Gets a new virtual register
+     */
+    public Register newTemp() {
+        return registers.getRegister();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder program = new StringBuilder();
+        for(IrFunction func : functions.values()) program.append(func).append('\n');
+        return program.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package ir;
+
+/*
+ * Continues at the block labelled target
+ */
+public class Jump extends IrInstruction {
+
+    private String target;
+
+    public Jump(String target) {
+        super(null);
+        this.target = target;
+    }
+
+    @Override
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
+    @Override
+    public boolean isTerminator() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "goto " + target;
+    }
+}
@@ -0,0 +1,65 @@
+package ir;
+
+import util.Register;
+
+import java.util.*;
+
+/*
+ * Works out which registers are live at the start and end of each reachable block of a
+ * function, i.e. may be read later before being written again
+ */
+public class LiveVariables {
+
+    private final Map<BasicBlock, Set<Register>> liveIn = new HashMap<>();
+    private final Map<BasicBlock, Set<Register>> liveOut = new HashMap<>();
+
+    public LiveVariables(ControlFlowGraph cfg) {
+        Map<BasicBlock, Set<Register>> use = new HashMap<>();
+        Map<BasicBlock, Set<Register>> def = new HashMap<>();
+        for(BasicBlock block : cfg.getReversePostorder()) {
+            Set<Register> blockUse = new HashSet<>();
+            Set<Register> blockDef = new HashSet<>();
+            for(IrInstruction ins : block.getInstructions()) {
+                for(Register reg : ins.getUses()) {
+                    if(!blockDef.contains(reg)) blockUse.add(reg);
+                }
+                if(ins.getDest() != null) blockDef.add(ins.getDest());
+            }
+            use.put(block, blockUse);
+            def.put(block, blockDef);
+            liveIn.put(block, new HashSet<Register>());
+            liveOut.put(block, new HashSet<Register>());
+        }
+
+        // blocks are visited in postorder, so most successors are done before their predecessors
+        List<BasicBlock> order = new ArrayList<>(cfg.getReversePostorder());
+        Collections.reverse(order);
+        boolean changed;
+        do {
+            changed = false;
+            for(BasicBlock block : order) {
+                Set<Register> out = liveOut.get(block);
+                for(BasicBlock successor : cfg.getSuccessors(block)) {
+                    Set<Register> in = liveIn.get(successor);
+                    if(in != null) out.addAll(in);
+                }
+
+                Set<Register> in = new HashSet<>(out);
+                in.removeAll(def.get(block));
+                in.addAll(use.get(block));
+                if(!in.equals(liveIn.get(block))) {
+                    liveIn.put(block, in);
+                    changed = true;
+                }
+            }
+        } while(changed);
+    }
+
+    public Set<Register> getLiveIn(BasicBlock block) {
+        return Collections.unmodifiableSet(liveIn.get(block));
+    }
+
+    public Set<Register> getLiveOut(BasicBlock block) {
+        return Collections.unmodifiableSet(liveOut.get(block));
+    }
+}
@@ -0,0 +1,35 @@
+package ir;
+
+import util.Register;
+
+/*
+ * dest = the word, or sign extended byte, at base + offset
+ */
+public class Load extends IrInstruction {
+
+    private final int offset;
+    private final boolean isByte;
+
+    public Load(Register dest, Value base, int offset, boolean isByte) {
+        super(dest, base);
+        this.offset = offset;
+        this.isByte = isByte;
+    }
+
+    public Value getBase() {
+        return getOperand(0);
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public boolean isByte() {
+        return isByte;
+    }
+
+    @Override
+    public String toString() {
+        return destString() + (isByte ? "byte " : "") + "[" + getBase() + (offset != 0 ? " + " + offset : "") + "]";
+    }
+}
@@ -0,0 +1,158 @@
+package ir;
+
+import java.util.*;
+
+/*
+ * Replaces a load with a copy of the register already holding the value at its address, either
+ * because the value was stored there or because it was loaded before. This is a forward dataflow
+ * over the control flow graph, like ConstantFolding, where a value is available at the start of a
+ * block if every visited predecessor leaves the same register holding it.
+ *
+ * A value stops being available when its address or its register is written, when a store may
+ * write over it, and at calls that may write memory. Two different base registers may point into
+ * the same object, so a store through one forgets everything loaded through the others
+ */
+public class LoadElimination extends IrPass {
+
+    private static final int WORD_SIZE = 4;
+
+    public LoadElimination() {
+        super("load elimination");
+    }
+
+    @Override
+    public void run(IrFunction func) {
+        ControlFlowGraph cfg = new ControlFlowGraph(func);
+        Map<BasicBlock, Map<Location, Value>> in = analyse(cfg);
+
+        for(BasicBlock block : cfg.getReversePostorder()) {
+            Map<Location, Value> available = in.get(block);
+            List<IrInstruction> instructions = block.getInstructions();
+
+            for(int i = 0; i < instructions.size(); i++) {
+                IrInstruction ins = instructions.get(i);
+                if(ins instanceof Load) {
+                    Value value = available.get(new Location((Load) ins));
+                    if(value != null && value.equals(Value.of(ins.getDest()))) {
+                        instructions.remove(i--);
+                        continue;
+                    }
+                    if(value != null) {
+                        ins = new Copy(ins.getDest(), value);
+                        instructions.set(i, ins);
+                    }
+                }
+                transfer(ins, available);
+            }
+        }
+    }
+
+    /*
+     * Gets the values available at the start of each reachable block
+     */
+    private static Map<BasicBlock, Map<Location, Value>> analyse(ControlFlowGraph cfg) {
+        Map<BasicBlock, Map<Location, Value>> in = new HashMap<>();
+        Map<BasicBlock, Map<Location, Value>> out = new HashMap<>();
+
+        boolean changed;
+        do {
+            changed = false;
+            for(BasicBlock block : cfg.getReversePostorder()) {
+                Map<Location, Value> available = meet(cfg.getPredecessors(block), out);
+                in.put(block, new HashMap<>(available));
+                for(IrInstruction ins : block.getInstructions()) transfer(ins, available);
+
+                if(!available.equals(out.get(block))) {
+                    out.put(block, available);
+                    changed = true;
+                }
+            }
+        } while(changed);
+        return in;
+    }
+
+    private static Map<Location, Value> meet(List<BasicBlock> predecessors, Map<BasicBlock, Map<Location, Value>> out) {
+        Map<Location, Value> available = null;
+        for(BasicBlock predecessor : predecessors) {
+            Map<Location, Value> other = out.get(predecessor);
+            if(other == null) continue;
+            if(available == null) {
+                available = new HashMap<>(other);
+            } else {
+                available.entrySet().retainAll(other.entrySet());
+            }
+        }
+        return available != null ? available : new HashMap<Location, Value>();
+    }
+
+    private static void transfer(IrInstruction ins, Map<Location, Value> available) {
+        if(ins instanceof Copy && ((Copy) ins).getSrc().equals(Value.of(ins.getDest()))) return;
+
+        if(ins instanceof Store) {
+            Store store = (Store) ins;
+            Location written = new Location(store.getBase(), store.getOffset(), store.isByte());
+            for(Iterator<Location> locations = available.keySet().iterator(); locations.hasNext(); ) {
+                if(written.mayOverlap(locations.next())) locations.remove();
+            }
+            // a byte load sign extends, so gives back a different value from the one stored
+            if(!store.isByte()) available.put(written, store.getSrc());
+        } else if(ins instanceof FunctionCall || ins instanceof Call && ((Call) ins).writesMemory()) {
+            available.clear();
+        }
+
+        if(ins.getDest() == null) return;
+        Value dest = Value.of(ins.getDest());
+        for(Iterator<Map.Entry<Location, Value>> entries = available.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<Location, Value> entry = entries.next();
+            if(entry.getKey().base.equals(dest) || entry.getValue().equals(dest)) entries.remove();
+        }
+
+        if(ins instanceof Load) {
+            Location read = new Location((Load) ins);
+            if(!read.base.equals(dest)) available.put(read, dest);
+        }
+    }
+
+    /*
+     * The word or byte at a constant offset from a base register
+     */
+    private static final class Location {
+        final Value base;
+        final int offset;
+        final boolean isByte;
+
+        Location(Value base, int offset, boolean isByte) {
+            this.base = base;
+            this.offset = offset;
+            this.isByte = isByte;
+        }
+
+        Location(Load load) {
+            this(load.getBase(), load.getOffset(), load.isByte());
+        }
+
+        int size() {
+            return isByte ? 1 : WORD_SIZE;
+        }
+
+        /*
+         * Whether writing this location may change [other], which it always may through another base
+         */
+        boolean mayOverlap(Location other) {
+            if(!base.equals(other.base)) return true;
+            return offset < other.offset + other.size() && other.offset < offset + size();
+        }
+
+        @Override
+        public int hashCode() {
+            return (base.hashCode() * 31 + offset) * 2 + (isByte ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Location)) return false;
+            Location other = (Location) obj;
+            return base.equals(other.base) && offset == other.offset && isByte == other.isByte;
+        }
+    }
+}
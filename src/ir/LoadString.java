@@ -0,0 +1,32 @@
+package ir;
+
+import util.Register;
+
+/*
+ * dest = the address of a string literal
+ * A literal that is never written to can share one copy with every equal literal
+ */
+public class LoadString extends IrInstruction {
+
+    private final String text;
+    private final boolean shared;
+
+    public LoadString(Register dest, String text, boolean shared) {
+        super(dest);
+        this.text = text;
+        this.shared = shared;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    @Override
+    public String toString() {
+        return destString() + "\"" + text + "\"";
+    }
+}
@@ -0,0 +1,104 @@
+package ir;
+
+import java.util.*;
+
+/*
+ * A natural loop of a control flow graph: a header that dominates every block of the loop, and
+ * the blocks that can get back to it without leaving the loop through the header
+ */
+public class Loop {
+
+    private final BasicBlock header;
+    private final List<BasicBlock> blocks = new ArrayList<>();
+    private final Set<BasicBlock> members = new HashSet<>();
+
+    // blocks in the loop that jump back to the header
+    private final List<BasicBlock> latches = new ArrayList<>();
+
+    // blocks in the loop that can leave it, and the blocks outside it they go to
+    private final Set<BasicBlock> exiting = new LinkedHashSet<>();
+    private final Set<BasicBlock> exits = new LinkedHashSet<>();
+
+    private Loop parent;
+
+    public Loop(BasicBlock header) {
+        this.header = header;
+        add(header);
+    }
+
+    public BasicBlock getHeader() {
+        return header;
+    }
+
+    /*
+     * Gets the blocks of the loop, including those of loops nested in it, in layout order
+     */
+    public List<BasicBlock> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    public boolean contains(BasicBlock block) {
+        return members.contains(block);
+    }
+
+    public List<BasicBlock> getLatches() {
+        return Collections.unmodifiableList(latches);
+    }
+
+    public Set<BasicBlock> getExitingBlocks() {
+        return Collections.unmodifiableSet(exiting);
+    }
+
+    public Set<BasicBlock> getExitBlocks() {
+        return Collections.unmodifiableSet(exits);
+    }
+
+    /*
+     * Gets the innermost loop this one is nested in, or null if it is outermost
+     */
+    public Loop getParent() {
+        return parent;
+    }
+
+    /*
+     * Gets how many loops this one is nested in, counting itself, so outermost loops are at depth 1
+     */
+    public int getDepth() {
+        int depth = 1;
+        for(Loop loop = parent; loop != null; loop = loop.parent) depth++;
+        return depth;
+    }
+
+    boolean add(BasicBlock block) {
+        if(!members.add(block)) return false;
+        blocks.add(block);
+        return true;
+    }
+
+    void addLatch(BasicBlock block) {
+        if(!latches.contains(block)) latches.add(block);
+    }
+
+    void addExit(BasicBlock from, BasicBlock to) {
+        exiting.add(from);
+        exits.add(to);
+    }
+
+    void setParent(Loop parent) {
+        this.parent = parent;
+    }
+
+    void sortBlocks(final Map<BasicBlock, Integer> layout) {
+        Collections.sort(blocks, new Comparator<BasicBlock>() {
+            @Override
+            public int compare(BasicBlock b1, BasicBlock b2) {
+                return layout.get(b1) - layout.get(b2);
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "loop at " + header.getLabel() + " (" + blocks.size() + " blocks, depth " + getDepth() + ")";
+    }
+}
@@ -0,0 +1,231 @@
+package ir;
+
+import util.Register;
+
+import java.util.*;
+
+/*
+ * Moves instructions that compute the same value on every iteration of a loop into the block
+ * before it, its preheader, so they run once. The generator lays out while and for loops with the
+ * condition after the body, so this takes loads of len a and arithmetic on variables the loop
+ * does not write out of both the condition and the body. Inner loops are done first, so what
+ * they hoist can be hoisted again out of the loops around them.
+ *
+ * An instruction is invariant if none of its operands are written in the loop. It is hoisted if
+ * it is the only write to its destination in the loop, the loop never reads the value its
+ * destination held before it, and if it may not run before every exit, code after the loop
+ * does not read its destination either.
+ *
+ * An instruction that may stop the program, such as a check or checked arithmetic, or that may
+ * read memory that is not there, is only hoisted if it would have run on the first iteration
+ * anyway, with nothing before it that could have been seen or stopped the program first. So
+ * the first runtime error a program gives is the same. Loads are only invariant if nothing in the
+ * loop may write over what they read. Array elements are read through their address at offset 0
+ * as well, so a store to any element stops a load from an element address being hoisted, and
+ * only loads from the start of an array or pair, such as len a, may be hoisted past it
+ */
+public class LoopInvariantCodeMotion extends IrPass {
+
+    public LoopInvariantCodeMotion() {
+        super("loop invariant code motion");
+    }
+
+    @Override
+    public void run(IrFunction func) {
+        ControlFlowGraph cfg = new ControlFlowGraph(func);
+        Set<Register> elementAddresses = findElementAddresses(func);
+        Set<Register> elementPointers = findElementPointers(func);
+
+        // moving instructions between blocks leaves the graph and its loops the same
+        List<Loop> loops = cfg.getLoops();
+        for(int i = loops.size() - 1; i >= 0; i--) {
+            Loop loop = loops.get(i);
+            BasicBlock preheader = cfg.getPreheader(loop);
+            if(preheader != null) hoist(cfg, loop, preheader, elementAddresses, elementPointers);
+        }
+    }
+
+    private static void hoist(ControlFlowGraph cfg, Loop loop, BasicBlock preheader, Set<Register> elementAddresses,
+                              Set<Register> elementPointers) {
+        LiveVariables liveness = new LiveVariables(cfg);
+        Set<Register> liveAfter = new HashSet<>();
+        for(BasicBlock exit : loop.getExitBlocks()) liveAfter.addAll(liveness.getLiveIn(exit));
+        Set<Register> liveBefore = liveness.getLiveIn(loop.getHeader());
+
+        Map<Register, Integer> writes = new HashMap<>();
+        boolean writesMemory = false;
+        boolean writesElements = false;
+        for(BasicBlock block : loop.getBlocks()) {
+            for(IrInstruction ins : block.getInstructions()) {
+                if(ins.getDest() != null) {
+                    Integer old = writes.get(ins.getDest());
+                    writes.put(ins.getDest(), old != null ? old + 1 : 1);
+                }
+                writesMemory |= mayWriteLoaded(ins, elementAddresses);
+                writesElements |= ins instanceof Store;
+            }
+        }
+
+        List<BasicBlock> blocks = new ArrayList<>();
+        for(BasicBlock block : cfg.getReversePostorder()) {
+            if(loop.contains(block)) blocks.add(block);
+        }
+
+        List<IrInstruction> hoisted = new ArrayList<>();
+        boolean changed;
+        do {
+            changed = false;
+
+            // whether something before the current instruction on the first iteration could be
+            // seen, stop the program or never finish
+            boolean blocked = false;
+            for(BasicBlock block : blocks) {
+                boolean alwaysRuns = !blocked && runsEveryIteration(cfg, loop, block);
+                blocked |= cfg.getLoop(block) != loop;
+
+                List<IrInstruction> instructions = block.getInstructions();
+                for(int i = 0; i < instructions.size(); i++) {
+                    IrInstruction ins = instructions.get(i);
+                    boolean mayFail = mayFail(ins);
+                    boolean memoryChanges = writesMemory || writesElements && mayReadElement(ins, elementPointers);
+                    if(!isInvariant(ins, writes, memoryChanges) || mayFail && !alwaysRuns
+                            || !canHoistDest(ins.getDest(), writes, liveBefore, liveAfter, cfg, loop, block)) {
+                        if(ins.hasSideEffects() && !(ins instanceof Branch || ins instanceof Jump)) {
+                            blocked = true;
+                            alwaysRuns = false;
+                        }
+                        continue;
+                    }
+
+                    instructions.remove(i--);
+                    hoisted.add(ins);
+                    if(ins.getDest() != null) writes.remove(ins.getDest());
+                    changed = true;
+                }
+            }
+        } while(changed);
+
+        List<IrInstruction> instructions = preheader.getInstructions();
+        IrInstruction last = preheader.getLast();
+        int at = last != null && last.endsBlock() ? instructions.size() - 1 : instructions.size();
+        instructions.addAll(at, hoisted);
+    }
+
+    private static boolean isInvariant(IrInstruction ins, Map<Register, Integer> writes, boolean memoryChanges) {
+        if(!(ins instanceof BinaryOp || ins instanceof UnaryOp || ins instanceof Copy || ins instanceof ElementAddress
+                || ins instanceof LoadString || ins instanceof Load || ins instanceof CheckBounds || ins instanceof CheckNull)) {
+            return false;
+        }
+        if(ins instanceof Load && (memoryChanges || ((Load) ins).getOffset() != 0)) return false;
+        for(Register reg : ins.getUses()) {
+            if(writes.containsKey(reg)) return false;
+        }
+        return true;
+    }
+
+    /*
+     * Whether moving [ins] to where it might not have run could stop the program or read memory
+     * that is not there
+     */
+    private static boolean mayFail(IrInstruction ins) {
+        if(ins instanceof BinaryOp) {
+            BinaryOp.Operator op = ((BinaryOp) ins).getOp();
+            return ins.hasSideEffects() || op == BinaryOp.Operator.DIV || op == BinaryOp.Operator.MOD;
+        }
+        return ins.hasSideEffects() || ins instanceof Load;
+    }
+
+    /*
+     * Whether hoisting a write to [dest] from [block] leaves every read of it with the same value
+     */
+    private static boolean canHoistDest(Register dest, Map<Register, Integer> writes, Set<Register> liveBefore,
+                                        Set<Register> liveAfter, ControlFlowGraph cfg, Loop loop, BasicBlock block) {
+        if(dest == null) return true;
+        Integer count = writes.get(dest);
+        if(count == null || count != 1 || liveBefore.contains(dest)) return false;
+        return !liveAfter.contains(dest) || runsEveryIteration(cfg, loop, block);
+    }
+
+    /*
+     * Whether [block] runs on every iteration of [loop] before it can be left
+     */
+    private static boolean runsEveryIteration(ControlFlowGraph cfg, Loop loop, BasicBlock block) {
+        for(BasicBlock exiting : loop.getExitingBlocks()) {
+            if(!cfg.dominates(block, exiting)) return false;
+        }
+        for(BasicBlock latch : loop.getLatches()) {
+            if(!cfg.dominates(block, latch)) return false;
+        }
+        return true;
+    }
+
+    /*
+     * Whether [ins] may write memory a load at offset 0 from the start of an array or pair reads,
+     * which is its length or first element. Stores to array elements never do, as elements start
+     * after the length and are never at the start of anything
+     */
+    private static boolean mayWriteLoaded(IrInstruction ins, Set<Register> elementAddresses) {
+        if(ins instanceof Store) {
+            Value base = ((Store) ins).getBase();
+            return base.isConstant() || !elementAddresses.contains(base.getRegister());
+        }
+        return ins instanceof FunctionCall || ins instanceof Call && ((Call) ins).writesMemory();
+    }
+
+    /*
+     * Whether [ins] is a load that may read an array element, so a store to an element may
+     * write over what it reads
+     */
+    private static boolean mayReadElement(IrInstruction ins, Set<Register> elementPointers) {
+        if(!(ins instanceof Load)) return false;
+        Value base = ((Load) ins).getBase();
+        return base.isConstant() || elementPointers.contains(base.getRegister());
+    }
+
+    /*
+     * Gets the registers only ever written with the address of an array element
+     */
+    private static Set<Register> findElementAddresses(IrFunction func) {
+        Set<Register> addresses = new HashSet<>();
+        Set<Register> others = new HashSet<>(func.getParams());
+        for(BasicBlock block : func.getBlocks()) {
+            for(IrInstruction ins : block.getInstructions()) {
+                if(ins.getDest() == null) continue;
+                if(ins instanceof ElementAddress) {
+                    addresses.add(ins.getDest());
+                } else {
+                    others.add(ins.getDest());
+                }
+            }
+        }
+        addresses.removeAll(others);
+        return addresses;
+    }
+
+    /*
+     * Gets the registers that may hold the address of an array element, those written with one
+     * or with a copy of, or arithmetic on, one of them
+     */
+    private static Set<Register> findElementPointers(IrFunction func) {
+        Set<Register> pointers = new HashSet<>();
+        boolean changed;
+        do {
+            changed = false;
+            for(BasicBlock block : func.getBlocks()) {
+                for(IrInstruction ins : block.getInstructions()) {
+                    Register dest = ins.getDest();
+                    if(dest == null || pointers.contains(dest)) continue;
+                    boolean isPointer = ins instanceof ElementAddress;
+                    if(ins instanceof Copy || ins instanceof BinaryOp || ins instanceof UnaryOp) {
+                        for(Register reg : ins.getUses()) isPointer |= pointers.contains(reg);
+                    }
+                    if(isPointer) {
+                        pointers.add(dest);
+                        changed = true;
+                    }
+                }
+            }
+        } while(changed);
+        return pointers;
+    }
+}
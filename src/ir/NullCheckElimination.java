@@ -0,0 +1,143 @@
+package ir;
+
+import util.Register;
+
+import java.util.*;
+
+/*
+ * Removes null checks on references that can not be null. A forward dataflow over the control
+ * flow graph finds the registers known to be non-null at each point: those just returned by
+ * malloc, those already checked, copies of them, and those a branch compared with null on the
+ * edge where they were not equal. A register stops being known non-null when it is written.
+ * Every other check is kept, so dereferencing null still stops the program with a NullReferenceError
+ */
+public class NullCheckElimination extends IrPass {
+
+    public NullCheckElimination() {
+        super("null check elimination");
+    }
+
+    @Override
+    public void run(IrFunction func) {
+        ControlFlowGraph cfg = new ControlFlowGraph(func);
+        Map<BasicBlock, Set<Register>> in = analyse(cfg);
+
+        for(BasicBlock block : cfg.getReversePostorder()) {
+            Set<Register> nonNull = in.get(block);
+            if(nonNull == null) continue;
+            List<IrInstruction> instructions = block.getInstructions();
+            for(int i = 0; i < instructions.size(); i++) {
+                IrInstruction ins = instructions.get(i);
+                if(ins instanceof CheckNull && isNonNull(((CheckNull) ins).getRef(), nonNull)) {
+                    instructions.remove(i--);
+                    continue;
+                }
+                transfer(ins, nonNull);
+            }
+        }
+    }
+
+    /*
+     * Gets the registers known to be non-null at the start of each block an edge that can be taken reaches
+     */
+    private static Map<BasicBlock, Set<Register>> analyse(ControlFlowGraph cfg) {
+        Map<BasicBlock, Set<Register>> in = new HashMap<>();
+        Map<BasicBlock, Set<Register>> out = new HashMap<>();
+
+        boolean changed;
+        do {
+            changed = false;
+            for(BasicBlock block : cfg.getReversePostorder()) {
+                Set<Register> nonNull = block == cfg.getEntry() ? new HashSet<Register>() : meet(cfg, block, out);
+                if(nonNull == null) continue;
+                in.put(block, new HashSet<>(nonNull));
+
+                for(IrInstruction ins : block.getInstructions()) transfer(ins, nonNull);
+                if(!nonNull.equals(out.get(block))) {
+                    out.put(block, nonNull);
+                    changed = true;
+                }
+            }
+        } while(changed);
+        return in;
+    }
+
+    /*
+     * Keeps the registers non-null on every visited edge into [block], or gets null if no edge
+     * that can be taken has been visited yet
+     */
+    private static Set<Register> meet(ControlFlowGraph cfg, BasicBlock block, Map<BasicBlock, Set<Register>> out) {
+        Set<Register> nonNull = null;
+        for(BasicBlock predecessor : cfg.getPredecessors(block)) {
+            Set<Register> other = out.get(predecessor);
+            if(other == null) continue;
+            other = new HashSet<>(other);
+            if(!refine(Comparison.onEdge(cfg, predecessor, block), other)) continue;
+
+            if(nonNull == null) {
+                nonNull = other;
+            } else {
+                nonNull.retainAll(other);
+            }
+        }
+        return nonNull;
+    }
+
+    /*
+     * Adds the registers [held] shows are not null, returning false if [held] can never be true
+     */
+    private static boolean refine(List<Comparison> held, Set<Register> nonNull) {
+        for(Comparison comparison : held) {
+            Value lhs = comparison.getLhs();
+            Value rhs = comparison.getRhs();
+            if(lhs.isConstant() && rhs.isConstant()) {
+                if(!comparison.getCond().test(lhs.getConstant(), rhs.getConstant())) return false;
+                continue;
+            }
+            if(lhs.isConstant()) {
+                Value tmp = lhs;
+                lhs = rhs;
+                rhs = tmp;
+            }
+            if(!rhs.isConstant() || rhs.getConstant() != 0) continue;
+
+            Register ref = lhs.getRegister();
+            if(comparison.getCond() == Condition.NE) {
+                nonNull.add(ref);
+            } else if(comparison.getCond() == Condition.EQ && nonNull.contains(ref)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void transfer(IrInstruction ins, Set<Register> nonNull) {
+        if(ins instanceof CheckNull) {
+            // code after a check only runs if it passed
+            Value ref = ((CheckNull) ins).getRef();
+            if(!ref.isConstant()) nonNull.add(ref.getRegister());
+            return;
+        }
+
+        Register dest = ins.getDest();
+        if(dest == null) return;
+        boolean isNonNull = false;
+        if(ins instanceof Copy) {
+            isNonNull = isNonNull(((Copy) ins).getSrc(), nonNull);
+        } else if(ins instanceof Call) {
+            isNonNull = ((Call) ins).getFunction().equals(Call.MALLOC_NAME);
+        } else if(ins instanceof ElementAddress || ins instanceof LoadString) {
+            isNonNull = true;
+        }
+
+        if(isNonNull) {
+            nonNull.add(dest);
+        } else {
+            nonNull.remove(dest);
+        }
+    }
+
+    private static boolean isNonNull(Value value, Set<Register> nonNull) {
+        return value.isConstant() ? value.getConstant() != 0 : nonNull.contains(value.getRegister());
+    }
+}
@@ -0,0 +1,66 @@
+package ir;
+
+/*
+ * Removes overflow checks on arithmetic that can never overflow, using the ranges RangeAnalysis
+ * finds for its operands. An addition, subtraction, multiplication or negation is made unchecked
+ * if every result its operands can give fits in 32 bits, so it is lowered to a plain ADD, SUB,
+ * MUL or RSB. Every other operation keeps its check and still stops the program with an
+ * OverflowError.
+ *
+ * How many checks were removed in each function with any is counted in the pass's stats
+ */
+public class OverflowCheckElimination extends IrPass {
+
+    public OverflowCheckElimination() {
+        super("overflow check elimination");
+    }
+
+    @Override
+    public void run(IrFunction func) {
+        ControlFlowGraph cfg = new ControlFlowGraph(func);
+        RangeAnalysis ranges = new RangeAnalysis(cfg);
+
+        int checked = 0;
+        int removed = 0;
+        for(BasicBlock block : cfg.getReversePostorder()) {
+            RangeAnalysis.State state = ranges.getIn(block);
+            for(IrInstruction ins : block.getInstructions()) {
+                if(isOverflowChecked(ins)) {
+                    checked++;
+                    if(state != null && cannotOverflow(ins, state)) {
+                        uncheck(ins);
+                        removed++;
+                    }
+                }
+                if(state != null) state.transfer(ins);
+            }
+        }
+        if(checked > 0) count("overflow checks removed in " + func.getName(), removed);
+    }
+
+    private static boolean isOverflowChecked(IrInstruction ins) {
+        if(ins instanceof BinaryOp) {
+            BinaryOp op = (BinaryOp) ins;
+            return op.isChecked() && (op.getOp() == BinaryOp.Operator.ADD || op.getOp() == BinaryOp.Operator.SUB
+                    || op.getOp() == BinaryOp.Operator.MUL);
+        }
+        return ins instanceof UnaryOp && ((UnaryOp) ins).isChecked();
+    }
+
+    private static boolean cannotOverflow(IrInstruction ins, RangeAnalysis.State state) {
+        if(ins instanceof BinaryOp) {
+            BinaryOp op = (BinaryOp) ins;
+            return RangeAnalysis.exactRangeOf(op.getOp(), state.range(op.getLhs()), state.range(op.getRhs())).fits();
+        }
+        // only the most negative number has no negation
+        return state.range(((UnaryOp) ins).getSrc()).getLo() > Integer.MIN_VALUE;
+    }
+
+    private static void uncheck(IrInstruction ins) {
+        if(ins instanceof BinaryOp) {
+            ((BinaryOp) ins).setChecked(false);
+        } else {
+            ((UnaryOp) ins).setChecked(false);
+        }
+    }
+}
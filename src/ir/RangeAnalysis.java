@@ -0,0 +1,478 @@
+package ir;
+
+import util.Register;
+
+import java.util.*;
+
+/*
+ * A forward dataflow over the control flow graph that tracks, at each point of a function,
+ *     the range of values each register may hold
+ *     which registers hold the length of an array, from a load of the word before its elements
+ *     the length of arrays created in this function with a known size
+ *     which registers are known to be below the length of an array
+ * Branches add what their condition says on each edge, so in
+ *     while i < len a do ... a[i] ... ; i = i + 1 done
+ * i is below the length of a inside the body, and at least 0 from its start and the increment.
+ * Ranges that keep growing around a loop are widened to the largest range of their bound, and a
+ * check that passes tells later code that its index is in range.
+ *
+ * Blocks no edge that can be taken reaches have no state
+ */
+public class RangeAnalysis {
+
+    private final Map<BasicBlock, State> in;
+
+    public RangeAnalysis(ControlFlowGraph cfg) {
+        in = analyse(cfg);
+    }
+
+    /*
+     * Gets a copy of what holds at the start of [block], or null if it can never run
+     */
+    public State getIn(BasicBlock block) {
+        State state = in.get(block);
+        return state != null ? state.copy() : null;
+    }
+
+    private static Map<BasicBlock, State> analyse(ControlFlowGraph cfg) {
+        Map<BasicBlock, State> in = new HashMap<>();
+        Map<BasicBlock, State> out = new HashMap<>();
+
+        boolean changed;
+        do {
+            changed = false;
+            for(BasicBlock block : cfg.getReversePostorder()) {
+                State state = block == cfg.getEntry() ? new State() : meet(cfg, block, out);
+                if(state == null) continue;
+                State old = in.get(block);
+                Loop loop = cfg.getLoop(block);
+                if(old != null && loop != null && loop.getHeader() == block) state.widen(old);
+                in.put(block, state.copy());
+
+                for(IrInstruction ins : block.getInstructions()) state.transfer(ins);
+                if(!state.equals(out.get(block))) {
+                    out.put(block, state);
+                    changed = true;
+                }
+            }
+        } while(changed);
+        return in;
+    }
+
+    /*
+     * Keeps what holds on every visited edge into [block] that can be taken, or gets null if
+     * there are none yet
+     */
+    private static State meet(ControlFlowGraph cfg, BasicBlock block, Map<BasicBlock, State> out) {
+        State state = null;
+        for(BasicBlock predecessor : cfg.getPredecessors(block)) {
+            State other = out.get(predecessor);
+            if(other == null) continue;
+            other = other.copy();
+            if(!refine(cfg, predecessor, block, other)) continue;
+            if(state == null) {
+                state = other;
+            } else {
+                state.meet(other);
+            }
+        }
+        return state;
+    }
+
+    /*
+     * Gets the range of the exact result of [op] on operands in [lhs] and [rhs], before it is
+     * made to fit in 32 bits
+     */
+    public static Range exactRangeOf(BinaryOp.Operator op, Range lhs, Range rhs) {
+        switch(op) {
+            case ADD:
+                return new Range(lhs.lo + rhs.lo, lhs.hi + rhs.hi);
+            case SUB:
+                return new Range(lhs.lo - rhs.hi, lhs.hi - rhs.lo);
+            case MUL:
+                long[] products = {lhs.lo * rhs.lo, lhs.lo * rhs.hi, lhs.hi * rhs.lo, lhs.hi * rhs.hi};
+                long lo = products[0];
+                long hi = products[0];
+                for(long product : products) {
+                    lo = Math.min(lo, product);
+                    hi = Math.max(hi, product);
+                }
+                return new Range(lo, hi);
+            case DIV:
+                if(lhs.lo >= 0 && rhs.lo > 0) return new Range(lhs.lo / rhs.hi, lhs.hi / rhs.lo);
+                return Range.FULL;
+            case MOD:
+                // the remainder has the sign of the dividend and is smaller than the divisor
+                if(lhs.lo < 0) return Range.FULL;
+                return new Range(0, rhs.lo > 0 ? Math.min(lhs.hi, rhs.hi - 1) : lhs.hi);
+            default:
+                return new Range(0, 1);
+        }
+    }
+
+    /*
+     * Gets [range] as the result of a 32 bit operation. A checked operation stops the program
+     * rather than give a result out of range, but an unchecked one wraps around
+     */
+    private static Range fit(Range range, boolean checked) {
+        if(range.fits()) return range;
+        if(!checked || range.lo > Integer.MAX_VALUE || range.hi < Integer.MIN_VALUE) return Range.FULL;
+        return range.intersect(Range.FULL);
+    }
+
+    /*
+     * Adds what the branch ending [from] says holds on its edge to [to], returning false if the
+     * edge can never be taken
+     */
+    private static boolean refine(ControlFlowGraph cfg, BasicBlock from, BasicBlock to, State state) {
+        for(Comparison comparison : Comparison.onEdge(cfg, from, to)) {
+            if(!state.refine(comparison.getCond(), comparison.getLhs(), comparison.getRhs())) return false;
+        }
+        return true;
+    }
+
+    private static List<Register> fact(Register index, Register array) {
+        return Arrays.asList(index, array);
+    }
+
+    /*
+     * The values a register may hold, from lo to hi inclusive
+     */
+    public static final class Range {
+        public static final Range FULL = new Range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        final long lo;
+        final long hi;
+
+        public Range(long lo, long hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        public long getLo() {
+            return lo;
+        }
+
+        public long getHi() {
+            return hi;
+        }
+
+        /*
+         * Gets the values in both ranges, or null if there are none
+         */
+        public Range intersect(Range other) {
+            long newLo = Math.max(lo, other.lo);
+            long newHi = Math.min(hi, other.hi);
+            return newLo <= newHi ? new Range(newLo, newHi) : null;
+        }
+
+        public Range union(Range other) {
+            return new Range(Math.min(lo, other.lo), Math.max(hi, other.hi));
+        }
+
+        public boolean isFull() {
+            return lo <= Integer.MIN_VALUE && hi >= Integer.MAX_VALUE;
+        }
+
+        /*
+         * Whether every value in the range is a 32 bit integer
+         */
+        public boolean fits() {
+            return lo >= Integer.MIN_VALUE && hi <= Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (lo * 31 + hi);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Range && ((Range) obj).lo == lo && ((Range) obj).hi == hi;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + lo + ", " + hi + "]";
+        }
+    }
+
+    /*
+     * What is known at one point of a function. Registers missing from ranges may hold anything
+     */
+    public static final class State {
+        private final Map<Register, Range> ranges = new HashMap<>();
+        private final Map<Register, Register> lengthOf = new HashMap<>();
+        private final Map<Register, Integer> lengths = new HashMap<>();
+
+        // pairs of an index and an array it is below the length of
+        private final Set<List<Register>> below = new HashSet<>();
+
+        public Range range(Value value) {
+            if(value.isConstant()) return new Range(value.getConstant(), value.getConstant());
+            Range range = ranges.get(value.getRegister());
+            return range != null ? range : Range.FULL;
+        }
+
+        /*
+         * Whether [index] is known to be below the length of [array]
+         */
+        public boolean isBelowLength(Value index, Value array) {
+            if(array.isConstant()) return false;
+            if(!index.isConstant() && below.contains(fact(index.getRegister(), array.getRegister()))) return true;
+            Integer length = lengths.get(array.getRegister());
+            return length != null && range(index).hi < length;
+        }
+
+        /*
+         * Updates what is known to what holds after [ins]
+         */
+        public void transfer(IrInstruction ins) {
+            if(ins instanceof CheckBounds) {
+                // code after a check only runs if it passed
+                CheckBounds check = (CheckBounds) ins;
+                if(check.getIndex().isConstant() || check.getArray().isConstant()) return;
+                Register index = check.getIndex().getRegister();
+                setRange(index, range(check.getIndex()).intersect(new Range(0, Integer.MAX_VALUE - 1)));
+                below.add(fact(index, check.getArray().getRegister()));
+                return;
+            }
+            if(ins instanceof Store) {
+                // the length of an array is the word stored at its start when it is created
+                Store store = (Store) ins;
+                if(store.getBase().isConstant() || store.getOffset() != 0 || store.isByte()) return;
+                Register base = store.getBase().getRegister();
+                if(store.getSrc().isConstant()) {
+                    lengths.put(base, store.getSrc().getConstant());
+                } else {
+                    lengths.remove(base);
+                }
+                return;
+            }
+
+            Register dest = ins.getDest();
+            if(dest == null) return;
+            if(ins instanceof Copy && ((Copy) ins).getSrc().equals(Value.of(dest))) return;
+
+            // work out what holds for the result before forgetting what held for the old value
+            Range range = Range.FULL;
+            Register newLengthOf = null;
+            Integer length = null;
+            Set<Register> belowArrays = new HashSet<>();
+            Set<Register> indicesBelow = new HashSet<>();
+
+            if(ins instanceof Copy) {
+                Value src = ((Copy) ins).getSrc();
+                range = range(src);
+                if(!src.isConstant()) {
+                    Register reg = src.getRegister();
+                    newLengthOf = lengthOf.get(reg);
+                    length = lengths.get(reg);
+                    belowArrays.addAll(arraysAbove(reg));
+                    indicesBelow.addAll(indicesBelow(reg));
+                }
+            } else if(ins instanceof BinaryOp) {
+                BinaryOp op = (BinaryOp) ins;
+                range = exactRangeOf(op.getOp(), range(op.getLhs()), range(op.getRhs()));
+                if(op.getOp() == BinaryOp.Operator.ADD || op.getOp() == BinaryOp.Operator.SUB
+                        || op.getOp() == BinaryOp.Operator.MUL) {
+                    range = fit(range, op.isChecked());
+                }
+                belowArrays.addAll(arraysAbove(op));
+            } else if(ins instanceof UnaryOp) {
+                UnaryOp op = (UnaryOp) ins;
+                Range src = range(op.getSrc());
+                range = op.getOp() == UnaryOp.Operator.NOT ? new Range(0, 1) : fit(new Range(-src.hi, -src.lo), op.isChecked());
+            } else if(ins instanceof Load) {
+                Load load = (Load) ins;
+                if(load.isByte()) {
+                    range = new Range(Byte.MIN_VALUE, Byte.MAX_VALUE);
+                } else if(load.getOffset() == 0 && !load.getBase().isConstant()) {
+                    // this is only a length if the base is an array, which checks on it show
+                    newLengthOf = load.getBase().getRegister();
+                }
+            }
+
+            forget(dest);
+            setRange(dest, range);
+            if(newLengthOf != null && !newLengthOf.equals(dest)) lengthOf.put(dest, newLengthOf);
+            if(length != null) lengths.put(dest, length);
+            for(Register array : belowArrays) {
+                if(!array.equals(dest)) below.add(fact(dest, array));
+            }
+            for(Register index : indicesBelow) {
+                if(!index.equals(dest)) below.add(fact(index, dest));
+            }
+        }
+
+        /*
+         * Gets the arrays the result of [op] is below the length of. Taking a positive constant from
+         * a length gives an index below it, taking one from an index keeps it below, and the remainder
+         * of a positive number divided by a length is below it
+         */
+        private Set<Register> arraysAbove(BinaryOp op) {
+            Set<Register> arrays = new HashSet<>();
+            if(op.getLhs().isConstant()) return arrays;
+            Register lhs = op.getLhs().getRegister();
+
+            if(op.getOp() == BinaryOp.Operator.MOD) {
+                Value rhs = op.getRhs();
+                if(!rhs.isConstant() && range(op.getLhs()).lo >= 0 && lengthOf.containsKey(rhs.getRegister())) {
+                    arrays.add(lengthOf.get(rhs.getRegister()));
+                }
+                return arrays;
+            }
+
+            if(!op.getRhs().isConstant()) return arrays;
+            long decrease;
+            if(op.getOp() == BinaryOp.Operator.SUB) {
+                decrease = op.getRhs().getConstant();
+            } else if(op.getOp() == BinaryOp.Operator.ADD) {
+                decrease = -(long) op.getRhs().getConstant();
+            } else {
+                return arrays;
+            }
+
+            // an unchecked subtraction that may wrap around could give a larger result
+            if(!op.isChecked() && range(op.getLhs()).lo - decrease < Integer.MIN_VALUE) return arrays;
+            if(decrease >= 0) arrays.addAll(arraysAbove(lhs));
+            if(decrease >= 1 && lengthOf.containsKey(lhs)) arrays.add(lengthOf.get(lhs));
+            return arrays;
+        }
+
+        /*
+         * Adds that [x] [cond] [y] holds, returning false if it never can
+         */
+        private boolean refine(Condition cond, Value x, Value y) {
+            switch(cond) {
+                case GT:
+                    return refine(Condition.LT, y, x);
+                case GE:
+                    return refine(Condition.LE, y, x);
+                case EQ:
+                    Range both = range(x).intersect(range(y));
+                    if(both == null) return false;
+                    if(!x.isConstant()) setRange(x.getRegister(), both);
+                    if(!y.isConstant()) setRange(y.getRegister(), both);
+                    return true;
+                case NE:
+                    return !(x.isConstant() && y.isConstant() && x.getConstant() == y.getConstant());
+            }
+
+            long strict = cond == Condition.LT ? 1 : 0;
+            Range xRange = range(x).intersect(new Range(Integer.MIN_VALUE, range(y).hi - strict));
+            Range yRange = range(y).intersect(new Range(range(x).lo + strict, Integer.MAX_VALUE));
+            if(xRange == null || yRange == null) return false;
+            if(!x.isConstant()) setRange(x.getRegister(), xRange);
+            if(!y.isConstant()) setRange(y.getRegister(), yRange);
+
+            if(x.isConstant() || y.isConstant()) return true;
+            Register index = x.getRegister();
+            Register bound = y.getRegister();
+            if(cond == Condition.LT && lengthOf.containsKey(bound)) {
+                below.add(fact(index, lengthOf.get(bound)));
+            }
+            for(Register array : arraysAbove(bound)) {
+                below.add(fact(index, array));
+            }
+            return true;
+        }
+
+        private void setRange(Register reg, Range range) {
+            if(range == null || range.isFull()) {
+                ranges.remove(reg);
+            } else {
+                ranges.put(reg, range);
+            }
+        }
+
+        private Set<Register> arraysAbove(Register index) {
+            Set<Register> arrays = new HashSet<>();
+            for(List<Register> fact : below) {
+                if(fact.get(0).equals(index)) arrays.add(fact.get(1));
+            }
+            return arrays;
+        }
+
+        private Set<Register> indicesBelow(Register array) {
+            Set<Register> indices = new HashSet<>();
+            for(List<Register> fact : below) {
+                if(fact.get(1).equals(array)) indices.add(fact.get(0));
+            }
+            return indices;
+        }
+
+        /*
+         * Forgets everything about the value [reg] held, when it is written
+         */
+        private void forget(Register reg) {
+            ranges.remove(reg);
+            lengthOf.remove(reg);
+            lengthOf.values().removeAll(Collections.singleton(reg));
+            lengths.remove(reg);
+            for(Iterator<List<Register>> facts = below.iterator(); facts.hasNext(); ) {
+                if(facts.next().contains(reg)) facts.remove();
+            }
+        }
+
+        /*
+         * Keeps only what also holds in [other]
+         */
+        private void meet(State other) {
+            for(Iterator<Map.Entry<Register, Range>> entries = ranges.entrySet().iterator(); entries.hasNext(); ) {
+                Map.Entry<Register, Range> entry = entries.next();
+                Range otherRange = other.ranges.get(entry.getKey());
+                if(otherRange == null) {
+                    entries.remove();
+                } else {
+                    entry.setValue(entry.getValue().union(otherRange));
+                }
+            }
+            lengthOf.entrySet().retainAll(other.lengthOf.entrySet());
+            lengths.entrySet().retainAll(other.lengths.entrySet());
+            below.retainAll(other.below);
+        }
+
+        /*
+         * Widens each range that grew since [old] to the whole range of the bound that grew, so
+         * ranges stop changing after a couple of times around a loop
+         */
+        private void widen(State old) {
+            for(Iterator<Map.Entry<Register, Range>> entries = ranges.entrySet().iterator(); entries.hasNext(); ) {
+                Map.Entry<Register, Range> entry = entries.next();
+                Range oldRange = old.ranges.get(entry.getKey());
+                if(oldRange == null) {
+                    entries.remove();
+                    continue;
+                }
+                Range range = entry.getValue();
+                long lo = range.lo < oldRange.lo ? Integer.MIN_VALUE : oldRange.lo;
+                long hi = range.hi > oldRange.hi ? Integer.MAX_VALUE : oldRange.hi;
+                entry.setValue(new Range(lo, hi));
+                if(entry.getValue().isFull()) entries.remove();
+            }
+        }
+
+        private State copy() {
+            State copy = new State();
+            copy.ranges.putAll(ranges);
+            copy.lengthOf.putAll(lengthOf);
+            copy.lengths.putAll(lengths);
+            copy.below.addAll(below);
+            return copy;
+        }
+
+        @Override
+        public int hashCode() {
+            return ranges.hashCode() ^ below.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof State)) return false;
+            State other = (State) obj;
+            return ranges.equals(other.ranges) && lengthOf.equals(other.lengthOf)
+                    && lengths.equals(other.lengths) && below.equals(other.below);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ir;
+
+import util.Register;
+
+/*
+ * Reads an integer or character from standard input into var, which keeps its old value if
+ * nothing could be read
+ */
+public class Read extends IrInstruction {
+
+    private final boolean isChar;
+
+    public Read(Register var, boolean isChar) {
+        super(var, Value.of(var));
+        this.isChar = isChar;
+    }
+
+    public boolean isChar() {
+        return isChar;
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "read " + (isChar ? "char " : "int ") + getDest();
+    }
+}
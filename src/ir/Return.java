@@ -0,0 +1,30 @@
+package ir;
+
+/*
+ * Returns from the function, with a result if value is not null
+ */
+public class Return extends IrInstruction {
+
+    public Return(Value value) {
+        super(null, value);
+    }
+
+    public Value getValue() {
+        return getOperand(0);
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
+    @Override
+    public boolean isTerminator() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "return" + (getValue() != null ? " " + getValue() : "");
+    }
+}
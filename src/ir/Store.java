@@ -0,0 +1,42 @@
+package ir;
+
+/*
+ * Writes src as a word, or its low byte, to base + offset
+ */
+public class Store extends IrInstruction {
+
+    private final int offset;
+    private final boolean isByte;
+
+    public Store(Value src, Value base, int offset, boolean isByte) {
+        super(null, src, base);
+        this.offset = offset;
+        this.isByte = isByte;
+    }
+
+    public Value getSrc() {
+        return getOperand(0);
+    }
+
+    public Value getBase() {
+        return getOperand(1);
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public boolean isByte() {
+        return isByte;
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return (isByte ? "byte " : "") + "[" + getBase() + (offset != 0 ? " + " + offset : "") + "] = " + getSrc();
+    }
+}
@@ -0,0 +1,299 @@
+package ir;
+
+import util.Register;
+
+import java.util.*;
+
+/*
+ * Finds the induction variables of each loop, registers changed by a constant once per
+ * iteration as in i = i + 1, and replaces work done on them each iteration with a register
+ * that changes by a constant alongside them:
+ *     the address of a[i], or of a[i + c] just computed, becomes a pointer moved along the array,
+ *     so loads and stores through it need no address arithmetic
+ *     i * k for a constant k becomes a register increased by k times the step
+ * The new registers start from i in the loop's preheader and are moved on next to the change to
+ * i. A pointer is moved on straight after its last use before that, where possible, so the
+ * access and the move can become one post indexed LDR or STR.
+ *
+ * Only multiplications already shown not to overflow are replaced, as the new register wraps
+ * around where they would have stopped the program
+ */
+public class StrengthReduction extends IrPass {
+
+    private IrProgram program;
+
+    public StrengthReduction() {
+        super("strength reduction");
+    }
+
+    @Override
+    public void run(IrProgram program) {
+        this.program = program;
+        super.run(program);
+    }
+
+    @Override
+    public void run(IrFunction func) {
+        ControlFlowGraph cfg = new ControlFlowGraph(func);
+
+        // adding instructions to blocks leaves the graph and its loops the same
+        List<Loop> loops = cfg.getLoops();
+        for(int i = loops.size() - 1; i >= 0; i--) {
+            Loop loop = loops.get(i);
+            BasicBlock preheader = cfg.getPreheader(loop);
+            if(preheader != null) reduce(loop, preheader);
+        }
+    }
+
+    private void reduce(Loop loop, BasicBlock preheader) {
+        Map<Register, Integer> writes = new HashMap<>();
+        for(BasicBlock block : loop.getBlocks()) {
+            for(IrInstruction ins : block.getInstructions()) {
+                if(ins.getDest() != null) count(writes, ins.getDest());
+            }
+        }
+
+        Map<Register, InductionVariable> variables = new HashMap<>();
+        for(BasicBlock block : loop.getBlocks()) {
+            for(int i = 0; i < block.getInstructions().size(); i++) {
+                InductionVariable variable = findInductionVariable(block, i, writes);
+                if(variable != null) variables.put(variable.reg, variable);
+            }
+        }
+        if(variables.isEmpty()) return;
+
+        // the new registers, by the induction variable and the array or factor they follow
+        Map<List<Object>, Derived> derived = new LinkedHashMap<>();
+        for(BasicBlock block : loop.getBlocks()) {
+            List<IrInstruction> instructions = block.getInstructions();
+            for(int i = 0; i < instructions.size(); i++) {
+                IrInstruction ins = instructions.get(i);
+                if(ins instanceof ElementAddress) {
+                    reduceAddress(block, i, variables, writes, derived);
+                } else if(ins instanceof BinaryOp) {
+                    reduceMultiply(block, i, variables, derived);
+                }
+            }
+        }
+
+        List<IrInstruction> starts = new ArrayList<>();
+        for(Derived reg : derived.values()) {
+            starts.add(reg.start);
+            moveOn(reg);
+        }
+        List<IrInstruction> instructions = preheader.getInstructions();
+        IrInstruction last = preheader.getLast();
+        int at = last != null && last.endsBlock() ? instructions.size() - 1 : instructions.size();
+        instructions.addAll(at, starts);
+    }
+
+    /*
+     * Gets the induction variable instruction [i] of [block] changes, if it is the only change
+     * to it in the loop and is i = i + c, or i = t just after t = i + c
+     */
+    private static InductionVariable findInductionVariable(BasicBlock block, int i, Map<Register, Integer> writes) {
+        IrInstruction ins = block.getInstructions().get(i);
+        Register reg = ins.getDest();
+        if(reg == null || writes.get(reg) != 1) return null;
+
+        BinaryOp step = null;
+        if(ins instanceof BinaryOp) {
+            step = (BinaryOp) ins;
+        } else if(ins instanceof Copy && !((Copy) ins).getSrc().isConstant()) {
+            IrInstruction def = findDef(block, i, ((Copy) ins).getSrc().getRegister(), reg);
+            if(def instanceof BinaryOp) step = (BinaryOp) def;
+        }
+
+        Integer by = stepOf(step, reg);
+        return by != null ? new InductionVariable(reg, block, ins, by) : null;
+    }
+
+    /*
+     * Gets how much [op] adds to [reg], or null if it is not reg + c or reg - c
+     */
+    private static Integer stepOf(BinaryOp op, Register reg) {
+        if(op == null || !op.getLhs().equals(Value.of(reg)) || !op.getRhs().isConstant()) return null;
+        long step;
+        if(op.getOp() == BinaryOp.Operator.ADD) {
+            step = op.getRhs().getConstant();
+        } else if(op.getOp() == BinaryOp.Operator.SUB) {
+            step = -(long) op.getRhs().getConstant();
+        } else {
+            return null;
+        }
+        return step >= Integer.MIN_VALUE && step <= Integer.MAX_VALUE ? (int) step : null;
+    }
+
+    /*
+     * Gets the last instruction before [i] in [block] that writes [reg], or null if there is none
+     * or [variable] is written after it
+     */
+    private static IrInstruction findDef(BasicBlock block, int i, Register reg, Register variable) {
+        List<IrInstruction> instructions = block.getInstructions();
+        for(int j = i - 1; j >= 0; j--) {
+            IrInstruction ins = instructions.get(j);
+            if(reg.equals(ins.getDest())) return ins;
+            if(variable.equals(ins.getDest())) return null;
+        }
+        return null;
+    }
+
+    /*
+     * Replaces the address of a[i + c] at instruction [i] of [block] with the pointer following
+     * a[i], plus c elements, and has the loads and stores after it use the pointer directly
+     */
+    private void reduceAddress(BasicBlock block, int i, Map<Register, InductionVariable> variables,
+                               Map<Register, Integer> writes, Map<List<Object>, Derived> derived) {
+        List<IrInstruction> instructions = block.getInstructions();
+        ElementAddress address = (ElementAddress) instructions.get(i);
+        Value array = address.getArray();
+        Value index = address.getIndex();
+        if(array.isConstant() || writes.containsKey(array.getRegister()) || index.isConstant()) return;
+
+        InductionVariable variable = variables.get(index.getRegister());
+        int elements = 0;
+        if(variable == null) {
+            // the index was just computed from the variable's current value
+            IrInstruction def = findDef(block, i, index.getRegister(), index.getRegister());
+            if(!(def instanceof BinaryOp) || ((BinaryOp) def).getLhs().isConstant()) return;
+            Register reg = ((BinaryOp) def).getLhs().getRegister();
+            variable = variables.get(reg);
+            Integer by = stepOf((BinaryOp) def, reg);
+            if(variable == null || by == null || findDef(block, i, index.getRegister(), reg) != def) return;
+            elements = by;
+        }
+
+        int size = address.isByte() ? 1 : 4;
+        long offset = (long) elements * size;
+        if(offset < Integer.MIN_VALUE || offset > Integer.MAX_VALUE) return;
+
+        List<Object> key = Arrays.<Object>asList("address", variable.reg, array.getRegister(), address.isByte());
+        Derived pointer = derived.get(key);
+        if(pointer == null) {
+            Register reg = program.newTemp();
+            pointer = new Derived(reg, new ElementAddress(reg, array, Value.of(variable.reg), address.isByte()),
+                    variable, variable.step * size, true);
+            derived.put(key, pointer);
+        }
+
+        Register dest = address.getDest();
+        Value reg = Value.of(pointer.reg);
+        if(offset == 0) {
+            instructions.set(i, new Copy(dest, reg));
+        } else {
+            BinaryOp add = new BinaryOp(BinaryOp.Operator.ADD, dest, reg, Value.constant((int) offset));
+            add.setChecked(false);
+            instructions.set(i, add);
+        }
+
+        // loads and stores through the address until it or what it came from changes
+        for(int j = i + 1; j < instructions.size(); j++) {
+            IrInstruction ins = instructions.get(j);
+            if(ins instanceof Load && ((Load) ins).getBase().equals(Value.of(dest))) {
+                Load load = (Load) ins;
+                instructions.set(j, new Load(load.getDest(), reg, load.getOffset() + (int) offset, load.isByte()));
+            } else if(ins instanceof Store && ((Store) ins).getBase().equals(Value.of(dest))
+                    && !((Store) ins).getSrc().equals(Value.of(dest))) {
+                Store store = (Store) ins;
+                instructions.set(j, new Store(store.getSrc(), reg, store.getOffset() + (int) offset, store.isByte()));
+            }
+            Register written = ins.getDest();
+            if(dest.equals(written) || variable.reg.equals(written)) break;
+        }
+    }
+
+    /*
+     * Replaces i * k at instruction [i] of [block], for a constant k, with a register increased
+     * by k times the step of i
+     */
+    private void reduceMultiply(BasicBlock block, int i, Map<Register, InductionVariable> variables,
+                                Map<List<Object>, Derived> derived) {
+        BinaryOp op = (BinaryOp) block.getInstructions().get(i);
+        if(op.getOp() != BinaryOp.Operator.MUL || op.isChecked() || op.getLhs().isConstant()
+                || !op.getRhs().isConstant()) {
+            return;
+        }
+        InductionVariable variable = variables.get(op.getLhs().getRegister());
+        if(variable == null) return;
+
+        int factor = op.getRhs().getConstant();
+        List<Object> key = Arrays.<Object>asList("multiply", variable.reg, factor);
+        Derived product = derived.get(key);
+        if(product == null) {
+            Register reg = program.newTemp();
+            BinaryOp start = new BinaryOp(BinaryOp.Operator.MUL, reg, Value.of(variable.reg), op.getRhs());
+            start.setChecked(false);
+            product = new Derived(reg, start, variable, variable.step * factor, false);
+            derived.put(key, product);
+        }
+        block.getInstructions().set(i, new Copy(op.getDest(), Value.of(product.reg)));
+    }
+
+    /*
+     * Moves [reg] on next to the change to its induction variable, straight after the last use
+     * of a pointer before it
+     */
+    private static void moveOn(Derived reg) {
+        List<IrInstruction> instructions = reg.variable.block.getInstructions();
+        int change = instructions.indexOf(reg.variable.def);
+        int at = change + 1;
+        if(reg.isPointer) {
+            for(int j = change - 1; j >= 0; j--) {
+                if(instructions.get(j).getUses().contains(reg.reg)) {
+                    at = j + 1;
+                    break;
+                }
+            }
+        }
+
+        BinaryOp move;
+        if(reg.step < 0 && reg.step != Integer.MIN_VALUE) {
+            move = new BinaryOp(BinaryOp.Operator.SUB, reg.reg, Value.of(reg.reg), Value.constant(-reg.step));
+        } else {
+            move = new BinaryOp(BinaryOp.Operator.ADD, reg.reg, Value.of(reg.reg), Value.constant(reg.step));
+        }
+        move.setChecked(false);
+        instructions.add(at, move);
+    }
+
+    private static void count(Map<Register, Integer> writes, Register reg) {
+        Integer old = writes.get(reg);
+        writes.put(reg, old != null ? old + 1 : 1);
+    }
+
+    /*
+     * A register changed only by [def] in [block], which adds [step] to it
+     */
+    private static final class InductionVariable {
+        final Register reg;
+        final BasicBlock block;
+        final IrInstruction def;
+        final int step;
+
+        InductionVariable(Register reg, BasicBlock block, IrInstruction def, int step) {
+            this.reg = reg;
+            this.block = block;
+            this.def = def;
+            this.step = step;
+        }
+    }
+
+    /*
+     * A register set by [start] before the loop, that changes by [step] whenever [variable] does
+     */
+    private static final class Derived {
+        final Register reg;
+        final IrInstruction start;
+        final InductionVariable variable;
+        final int step;
+        final boolean isPointer;
+
+        Derived(Register reg, IrInstruction start, InductionVariable variable, int step, boolean isPointer) {
+            this.reg = reg;
+            this.start = start;
+            this.variable = variable;
+            this.step = step;
+            this.isPointer = isPointer;
+        }
+    }
+}
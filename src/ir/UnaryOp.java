@@ -0,0 +1,58 @@
+package ir;
+
+import util.Register;
+
+/*
+ * dest = op src, where a checked negation stops the program if it overflows
+ */
+public class UnaryOp extends IrInstruction {
+
+    public enum Operator {
+        NEG("-"), NOT("!");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    private final Operator op;
+    private boolean checked;
+
+    public UnaryOp(Operator op, Register dest, Value src) {
+        super(dest, src);
+        this.op = op;
+        this.checked = op == Operator.NEG;
+    }
+
+    public Operator getOp() {
+        return op;
+    }
+
+    public Value getSrc() {
+        return getOperand(0);
+    }
+
+    public boolean isChecked() {
+        return checked;
+    }
+
+    public void setChecked(boolean checked) {
+        this.checked = checked;
+    }
+
+    @Override
+    public boolean hasSideEffects() {
+        return checked;
+    }
+
+    @Override
+    public String toString() {
+        return destString() + op.getSymbol() + getSrc() + (checked ? " (checked)" : "");
+    }
+}
@@ -0,0 +1,64 @@
+package ir;
+
+import util.Register;
+
+/*
+ * An operand of an IR instruction, either a virtual register or a 32 bit constant
+ * Values are immutable and compared by what they hold, so they can be shared between instructions
+ */
+public final class Value {
+
+    private final Register reg;
+    private final int constant;
+
+    private Value(Register reg, int constant) {
+        this.reg = reg;
+        this.constant = constant;
+    }
+
+    public static Value of(Register reg) {
+        if(reg == null) {
+            throw new IllegalArgumentException("Null register passed to Value::of");
+        }
+        return new Value(reg, 0);
+    }
+
+    public static Value constant(int constant) {
+        return new Value(null, constant);
+    }
+
+    public boolean isConstant() {
+        return reg == null;
+    }
+
+    /*
+     * Gets the register this value is held in, or null if it is a constant
+     */
+    public Register getRegister() {
+        return reg;
+    }
+
+    public int getConstant() {
+        if(reg != null) {
+            throw new IllegalStateException("Value " + reg + " is not a constant");
+        }
+        return constant;
+    }
+
+    @Override
+    public int hashCode() {
+        return reg != null ? reg.hashCode() : 31 * constant + 7;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof Value)) return false;
+        Value other = (Value) obj;
+        return reg != null ? reg.equals(other.reg) : other.reg == null && constant == other.constant;
+    }
+
+    @Override
+    public String toString() {
+        return reg != null ? reg.toString() : "#" + constant;
+    }
+}
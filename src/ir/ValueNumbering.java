@@ -0,0 +1,176 @@
+package ir;
+
+import util.Register;
+
+import java.util.*;
+
+/*
+ * Local value numbering: within each block, gives every value computed a number such that
+ * equal numbers mean equal values, and replaces an instruction that computes a value already held
+ * in a register with a copy of that register. This catches the same element address or pair
+ * element computed twice, as in a[i] = a[i] + 1, and checks repeated on the same values.
+ *
+ * Loads are numbered along with how many times memory may have been written before them in the
+ * block, so two loads from the same address are only the same value if nothing was written in between.
+ * Operands are also renamed to the first register still holding their value, so copies of a base
+ * register load from the same address as the original
+ */
+public class ValueNumbering extends IrPass {
+
+    public ValueNumbering() {
+        super("value numbering");
+    }
+
+    @Override
+    public void run(IrFunction func) {
+        for(BasicBlock block : func.getBlocks()) {
+            new BlockNumbering().run(block);
+        }
+    }
+
+    private static class BlockNumbering {
+
+        // the number of the value each register holds
+        private final Map<Register, Integer> numbers = new HashMap<>();
+        private final Map<Integer, Integer> constants = new HashMap<>();
+
+        // the number of each expression computed, and a register that may still hold each number
+        private final Map<List<Object>, Integer> expressions = new HashMap<>();
+        private final Map<Integer, Register> holders = new HashMap<>();
+
+        private int nextNumber = 0;
+        private int memoryVersion = 0;
+
+        void run(BasicBlock block) {
+            List<IrInstruction> instructions = block.getInstructions();
+            for(int i = 0; i < instructions.size(); i++) {
+                IrInstruction ins = instructions.get(i);
+                if(!(ins instanceof Read)) rename(ins);
+
+                List<Object> key = key(ins);
+                if(key == null) {
+                    if(writesMemory(ins)) memoryVersion++;
+                    if(ins.getDest() != null) define(ins.getDest(), nextNumber++);
+                    continue;
+                }
+
+                Integer known = expressions.get(key);
+                if(ins.getDest() == null) {
+                    // a check that already passed on the same values passes again
+                    if(known != null) {
+                        instructions.remove(i--);
+                    } else {
+                        expressions.put(key, nextNumber++);
+                    }
+                    continue;
+                }
+
+                if(ins instanceof Copy) {
+                    define(ins.getDest(), numberOf(((Copy) ins).getSrc()));
+                } else if(known != null && holder(known) != null) {
+                    Register holder = holder(known);
+                    instructions.set(i, new Copy(ins.getDest(), Value.of(holder)));
+                    define(ins.getDest(), known);
+                } else {
+                    int number = known != null ? known : nextNumber++;
+                    expressions.put(key, number);
+                    define(ins.getDest(), number);
+                }
+            }
+        }
+
+        /*
+         * Replaces each register operand with the register that first got its value, if that
+         * still holds it
+         */
+        private void rename(IrInstruction ins) {
+            for(int i = 0; i < ins.getOperands().size(); i++) {
+                Value operand = ins.getOperand(i);
+                if(operand == null || operand.isConstant()) continue;
+                Register holder = holder(numberOf(operand));
+                if(holder != null && !holder.equals(operand.getRegister())) ins.setOperand(i, Value.of(holder));
+            }
+        }
+
+        /*
+         * Gets what identifies the value [ins] computes, or null if it may differ every time
+         */
+        private List<Object> key(IrInstruction ins) {
+            if(ins instanceof Copy) {
+                return Arrays.<Object>asList("copy");
+            } else if(ins instanceof BinaryOp) {
+                // a checked operation that did not fail will not fail with the same operands
+                BinaryOp op = (BinaryOp) ins;
+                int lhs = numberOf(op.getLhs());
+                int rhs = numberOf(op.getRhs());
+                if(isCommutative(op.getOp()) && lhs > rhs) {
+                    int tmp = lhs;
+                    lhs = rhs;
+                    rhs = tmp;
+                }
+                return Arrays.<Object>asList(op.getOp(), lhs, rhs);
+            } else if(ins instanceof UnaryOp) {
+                UnaryOp op = (UnaryOp) ins;
+                return Arrays.<Object>asList(op.getOp(), numberOf(op.getSrc()));
+            } else if(ins instanceof ElementAddress) {
+                ElementAddress address = (ElementAddress) ins;
+                return Arrays.<Object>asList("address", numberOf(address.getArray()), numberOf(address.getIndex()), address.isByte());
+            } else if(ins instanceof Load) {
+                Load load = (Load) ins;
+                return Arrays.<Object>asList("load", numberOf(load.getBase()), load.getOffset(), load.isByte(), memoryVersion);
+            } else if(ins instanceof CheckBounds) {
+                // the length of an array never changes
+                CheckBounds check = (CheckBounds) ins;
+                return Arrays.<Object>asList("bounds", numberOf(check.getIndex()), numberOf(check.getArray()));
+            } else if(ins instanceof CheckNull) {
+                return Arrays.<Object>asList("null", numberOf(((CheckNull) ins).getRef()));
+            }
+            return null;
+        }
+
+        private static boolean isCommutative(BinaryOp.Operator op) {
+            switch(op) {
+                case ADD: case MUL: case AND: case OR: case EQ: case NE: return true;
+                default: return false;
+            }
+        }
+
+        private static boolean writesMemory(IrInstruction ins) {
+            return ins instanceof Store || ins instanceof FunctionCall || ins instanceof Call && ((Call) ins).writesMemory();
+        }
+
+        private int numberOf(Value value) {
+            if(value.isConstant()) {
+                Integer number = constants.get(value.getConstant());
+                if(number == null) {
+                    number = nextNumber++;
+                    constants.put(value.getConstant(), number);
+                }
+                return number;
+            }
+
+            // registers first read in this block hold a value from before it
+            Integer number = numbers.get(value.getRegister());
+            if(number == null) {
+                number = nextNumber++;
+                define(value.getRegister(), number);
+            }
+            return number;
+        }
+
+        private void define(Register reg, int number) {
+            numbers.put(reg, number);
+            if(holder(number) == null) holders.put(number, reg);
+        }
+
+        /*
+         * Gets the register holding value [number], or null if it has been overwritten
+         */
+        private Register holder(int number) {
+            Register reg = holders.get(number);
+            if(reg == null) return null;
+            Integer current = numbers.get(reg);
+            return current != null && current == number ? reg : null;
+        }
+    }
+}
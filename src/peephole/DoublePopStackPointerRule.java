@@ -0,0 +1,30 @@
+package peephole;
+
+import instructions.Instruction;
+import instructions.PopInstruction;
+import util.Registers;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Two POP {sp} in a row, only the first is kept
+ */
+public class DoublePopStackPointerRule extends PeepholeRule {
+
+    public DoublePopStackPointerRule() {
+        super("double pop stack pointer", PopInstruction.class, 2);
+    }
+
+    @Override
+    public List<Instruction> rewrite(List<Instruction> window) {
+        PopInstruction p1 = (PopInstruction) window.get(0);
+        if(!(window.get(1) instanceof PopInstruction)) return null;
+        PopInstruction p2 = (PopInstruction) window.get(1);
+
+        if(p1.getReg().equals(Registers.sp) && p2.getReg().equals(Registers.sp)) {
+            return Collections.<Instruction>singletonList(p1);
+        }
+        return null;
+    }
+}
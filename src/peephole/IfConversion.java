@@ -0,0 +1,155 @@
+package peephole;
+
+import instructions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Replaces a conditional branch around the short arms of an if statement with the arms
+ * themselves, each made conditional, so
+ *     CMP r5, #0                CMP r5, #0
+ *     BEQ L0                    MOVNE r4, #1
+ *     MOV r4, #1         ->     MOVEQ r4, #2
+ *     B L1
+ * L0:
+ *     MOV r4, #2
+ * L1:
+ * and the same without the else arm. A skipped conditional instruction still takes a cycle, but
+ * a taken branch flushes the pipeline, so only arms of at most MAX_ARM_SIZE instructions are
+ * converted.
+ *
+ * No instruction in an arm may set the flags, or the other arm would see them, and nothing else
+ * may branch to the else arm, as it would run there with whatever flags it had
+ */
+public class IfConversion {
+
+    private static final int MAX_ARM_SIZE = 2;
+
+    private int converted = 0;
+
+    /*
+     * Gets how many ifs have been converted
+     */
+    public int getConverted() {
+        return converted;
+    }
+
+    public void convert(List<Instruction> func) {
+        Map<String, Integer> references = new HashMap<>();
+        for(Instruction ins : func) {
+            String target = targetOf(ins);
+            if(target != null) {
+                Integer old = references.get(target);
+                references.put(target, old != null ? old + 1 : 1);
+            }
+        }
+
+        for(int i = 0; i < func.size(); i++) {
+            if(conditionOf(func.get(i)) != null && convertAt(func, i, references)) converted++;
+        }
+    }
+
+    /*
+     * Converts the if whose branch to its else arm, or past its only arm, is instruction [i]
+     * Returns false, leaving [func] unchanged, if it is not short enough
+     */
+    private static boolean convertAt(List<Instruction> func, int i, Map<String, Integer> references) {
+        String cond = conditionOf(func.get(i));
+        String elseLabel = targetOf(func.get(i));
+        if(references.get(elseLabel) != 1) return false;
+
+        int thenEnd = armEnd(func, i + 1);
+        if(thenEnd == func.size()) return false;
+
+        // if c then a fi
+        if(isLabel(func.get(thenEnd), elseLabel)) {
+            predicate(func, i + 1, thenEnd, inverse(cond));
+            func.remove(thenEnd);
+            func.remove(i);
+            return true;
+        }
+
+        // if c then a else b fi
+        if(!(func.get(thenEnd) instanceof BranchInstruction) || thenEnd + 1 == func.size()
+                || !isLabel(func.get(thenEnd + 1), elseLabel)) {
+            return false;
+        }
+        String endLabel = targetOf(func.get(thenEnd));
+        int elseEnd = armEnd(func, thenEnd + 2);
+        if(elseEnd == func.size() || !isLabel(func.get(elseEnd), endLabel)) return false;
+
+        predicate(func, thenEnd + 2, elseEnd, cond);
+        predicate(func, i + 1, thenEnd, inverse(cond));
+        int endReferences = references.get(endLabel) - 1;
+        references.put(endLabel, endReferences);
+        if(endReferences == 0) func.remove(elseEnd);
+        func.subList(thenEnd, thenEnd + 2).clear();
+        func.remove(i);
+        return true;
+    }
+
+    /*
+     * Gets the end of the arm starting at [start], the first instruction after it that can not be
+     * made conditional, or the size of [func] if the arm is longer than MAX_ARM_SIZE
+     */
+    private static int armEnd(List<Instruction> func, int start) {
+        int end = start;
+        while(end < func.size() && canPredicate(func.get(end))) {
+            if(end - start == MAX_ARM_SIZE) return func.size();
+            end++;
+        }
+        return end;
+    }
+
+    private static void predicate(List<Instruction> func, int start, int end, String cond) {
+        for(int i = start; i < end; i++) {
+            func.set(i, new ConditionalInstruction(cond, func.get(i)));
+        }
+    }
+
+    /*
+     * Whether [ins] can be made conditional, so runs no code elsewhere and leaves the flags alone
+     */
+    private static boolean canPredicate(Instruction ins) {
+        if(ins instanceof AddInstruction) return !((AddInstruction) ins).setFlags;
+        if(ins instanceof SubInstruction) return !((SubInstruction) ins).setFlags;
+        if(ins instanceof NegateInstruction) return !((NegateInstruction) ins).setFlags;
+        return ins instanceof MoveInstruction || ins instanceof LoadInstruction || ins instanceof StoreInstruction
+                || ins instanceof AndInstruction || ins instanceof OrInstruction || ins instanceof ExclusiveOrInstruction
+                || ins instanceof MultiplyInstruction;
+    }
+
+    private static boolean isLabel(Instruction ins, String label) {
+        return ins instanceof LabelInstruction && ((LabelInstruction) ins).getIdent().equals(label);
+    }
+
+    /*
+     * Gets the condition [ins] branches on, or null if it is not a conditional branch
+     */
+    private static String conditionOf(Instruction ins) {
+        if(ins instanceof ConditionalBranchInstruction) return ((ConditionalBranchInstruction) ins).getCondition();
+        return null;
+    }
+
+    private static String inverse(String cond) {
+        switch(cond) {
+            case "EQ": return "NE";
+            case "NE": return "EQ";
+            case "LT": return "GE";
+            case "GE": return "LT";
+            case "GT": return "LE";
+            default: return "GT";
+        }
+    }
+
+    /*
+     * Gets the label [ins] branches to, or null if it is not a branch within its function
+     */
+    private static String targetOf(Instruction ins) {
+        if(ins instanceof BranchInstruction) return ((BranchInstruction) ins).getLabel();
+        if(ins instanceof ConditionalBranchInstruction) return ((ConditionalBranchInstruction) ins).getLabel();
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package peephole;
+
+import instructions.Instruction;
+
+import java.util.List;
+
+/*
+ * A peephole optimisation over a window of consecutive instructions in one function.
+ * Rules are looked up by the class of the first instruction in the window, so [rewrite]
+ * is only ever given windows that start with an instance of [first]
+ */
+public abstract class PeepholeRule {
+
+    private final String name;
+    private final Class<? extends Instruction> first;
+    private final int windowSize;
+
+    protected PeepholeRule(String name, Class<? extends Instruction> first, int windowSize) {
+        if(windowSize < 1) {
+            throw new IllegalArgumentException("Invalid window size " + windowSize + " for rule " + name);
+        }
+        this.name = name;
+        this.first = first;
+        this.windowSize = windowSize;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<? extends Instruction> getFirst() {
+        return first;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /*
+     * Returns the instructions that should replace [window], or null if the rule does not apply
+     * The replacement can not be longer than the window, so a rule never grows a function
+     */
+    public abstract List<Instruction> rewrite(List<Instruction> window);
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
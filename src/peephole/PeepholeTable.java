@@ -0,0 +1,82 @@
+package peephole;
+
+import instructions.Instruction;
+
+import java.util.*;
+
+/*
+ * The registered peephole rules, indexed by the class of the first instruction they match
+ * Looking up a window's rules is a single map access, rather than asking every rule in turn
+ */
+public class PeepholeTable {
+
+    private final Map<Class<?>, List<PeepholeRule>> rules = new HashMap<>();
+    private final List<PeepholeRule> allRules = new ArrayList<>();
+
+    // rules for each instruction class seen so far, including those inherited from superclasses
+    private final Map<Class<?>, List<PeepholeRule>> lookups = new HashMap<>();
+
+    // window sizes of all registered rules, smallest first
+    private int[] windowSizes = new int[0];
+
+    /*
+     * Creates a table holding every rule the optimiser runs by default
+     */
+    public static PeepholeTable defaultRules() {
+        PeepholeTable table = new PeepholeTable();
+        table.add(new StoreLoadRule());
+        table.add(new DoublePopStackPointerRule());
+        table.add(new SelfMoveRule());
+        table.add(new PostIndexLoadRule());
+        table.add(new PostIndexStoreRule());
+        return table;
+    }
+
+    public void add(PeepholeRule rule) {
+        List<PeepholeRule> forClass = rules.get(rule.getFirst());
+        if(forClass == null) {
+            forClass = new ArrayList<>();
+            rules.put(rule.getFirst(), forClass);
+        }
+        forClass.add(rule);
+        allRules.add(rule);
+        lookups.clear();
+
+        if(Arrays.binarySearch(windowSizes, rule.getWindowSize()) < 0) {
+            windowSizes = Arrays.copyOf(windowSizes, windowSizes.length + 1);
+            windowSizes[windowSizes.length - 1] = rule.getWindowSize();
+            Arrays.sort(windowSizes);
+        }
+    }
+
+    /*
+     * Gets the rules that can match a window starting with [ins], including rules registered
+     * for a superclass of it, in the order they were added
+     */
+    public List<PeepholeRule> getRules(Instruction ins) {
+        List<PeepholeRule> result = lookups.get(ins.getClass());
+        if(result != null) return result;
+
+        result = Collections.emptyList();
+        for(Class<?> c = ins.getClass(); c != Object.class; c = c.getSuperclass()) {
+            List<PeepholeRule> forClass = rules.get(c);
+            if(forClass == null) continue;
+            if(result.isEmpty()) {
+                result = forClass;
+            } else {
+                result = new ArrayList<>(result);
+                result.addAll(forClass);
+            }
+        }
+        lookups.put(ins.getClass(), result);
+        return result;
+    }
+
+    public List<PeepholeRule> getAllRules() {
+        return allRules;
+    }
+
+    public int[] getWindowSizes() {
+        return windowSizes;
+    }
+}
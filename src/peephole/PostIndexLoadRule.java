@@ -0,0 +1,47 @@
+package peephole;
+
+import instructions.AddInstruction;
+import instructions.Instruction;
+import instructions.LoadInstruction;
+import util.Register;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * LDR r, [p] followed by ADD p, p, #n reads through p and then moves it on, which a post indexed
+ * LDR r, [p], #n does in one instruction. This is how a pointer moved along an array is read
+ */
+public class PostIndexLoadRule extends PeepholeRule {
+
+    // the largest offset a post indexed LDRSB can encode, which every other access can too
+    private static final int MAX_POST_INDEX = 255;
+
+    public PostIndexLoadRule() {
+        super("post indexed load", LoadInstruction.class, 2);
+    }
+
+    @Override
+    public List<Instruction> rewrite(List<Instruction> window) {
+        LoadInstruction load = (LoadInstruction) window.get(0);
+        if(!(window.get(1) instanceof AddInstruction)) return null;
+        AddInstruction add = (AddInstruction) window.get(1);
+
+        if(!load.getSrc().isAddress() || load.getSrc().getOffset() != 0) return null;
+        Register base = load.getSrc().getReg();
+        if(!isMoveOn(add, base) || load.getDest().equals(base)) return null;
+
+        load.setPostIndex(add.getOp().getImmediate());
+        return Collections.<Instruction>singletonList(load);
+    }
+
+    /*
+     * Whether [add] only moves [base] on by a constant a post indexed access can encode
+     */
+    static boolean isMoveOn(AddInstruction add, Register base) {
+        if(!add.isPlain() || !add.getDest().equals(base) || !add.getSrc().equals(base)) return false;
+        if(!add.getOp().isImmediate()) return false;
+        int step = add.getOp().getImmediate();
+        return step > 0 && step <= MAX_POST_INDEX;
+    }
+}
@@ -0,0 +1,32 @@
+package peephole;
+
+import instructions.AddInstruction;
+import instructions.Instruction;
+import instructions.StoreInstruction;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * STR r, [p] followed by ADD p, p, #n becomes the post indexed STR r, [p], #n, as for loads
+ */
+public class PostIndexStoreRule extends PeepholeRule {
+
+    public PostIndexStoreRule() {
+        super("post indexed store", StoreInstruction.class, 2);
+    }
+
+    @Override
+    public List<Instruction> rewrite(List<Instruction> window) {
+        StoreInstruction store = (StoreInstruction) window.get(0);
+        if(!(window.get(1) instanceof AddInstruction)) return null;
+        AddInstruction add = (AddInstruction) window.get(1);
+
+        if(store.getOffset() != 0 || store.isPreIndex() || store.getPostIndex() != 0) return null;
+        // writing back to the register being stored is unpredictable
+        if(!PostIndexLoadRule.isMoveOn(add, store.getDest()) || store.getSrc().equals(store.getDest())) return null;
+
+        store.setPostIndex(add.getOp().getImmediate());
+        return Collections.<Instruction>singletonList(store);
+    }
+}
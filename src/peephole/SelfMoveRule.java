@@ -0,0 +1,26 @@
+package peephole;
+
+import instructions.Instruction;
+import instructions.MoveInstruction;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * MOV r, r does nothing, which happens when the allocator gives both sides of a move one register
+ */
+public class SelfMoveRule extends PeepholeRule {
+
+    public SelfMoveRule() {
+        super("move to itself", MoveInstruction.class, 1);
+    }
+
+    @Override
+    public List<Instruction> rewrite(List<Instruction> window) {
+        MoveInstruction move = (MoveInstruction) window.get(0);
+        if(move.isRegisterSrc() && move.getDest().equals(move.getSrc())) {
+            return Collections.emptyList();
+        }
+        return null;
+    }
+}
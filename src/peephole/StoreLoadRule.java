@@ -0,0 +1,34 @@
+package peephole;
+
+import instructions.Instruction;
+import instructions.LoadInstruction;
+import instructions.StoreInstruction;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * STR r, [addr] followed by LDR r, [addr] leaves r unchanged, so the load is dropped
+ */
+public class StoreLoadRule extends PeepholeRule {
+
+    public StoreLoadRule() {
+        super("store then load back", StoreInstruction.class, 2);
+    }
+
+    @Override
+    public List<Instruction> rewrite(List<Instruction> window) {
+        StoreInstruction store = (StoreInstruction) window.get(0);
+        if(!(window.get(1) instanceof LoadInstruction)) return null;
+        LoadInstruction load = (LoadInstruction) window.get(1);
+
+        // a pre or post indexed store moves the base register, so the load reads a different address
+        if(store.isPreIndex() || store.getPostIndex() != 0) return null;
+
+        if(store.getDest().equals(load.getSrc()) && store.getSrc().equals(load.getDest())
+                && store.getOffset() == (int) load.getOffset()) {
+            return Collections.<Instruction>singletonList(store);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,244 @@
+package regalloc;
+
+import instructions.*;
+import util.Arm11Program;
+import util.Register;
+import util.Registers;
+
+import java.util.*;
+
+/*
+ * Assigns real registers to the virtual registers of each function by linear scan over their
+ * live intervals (Poletto and Sarkar). Virtual registers go in r4 - r10, which a function saves
+ * on entry if it uses them, so values stay in registers across calls. When every register is
+ * taken the interval that ends last is spilled to a slot in the frame, and each use of it is
+ * loaded into a scratch register (ip or lr) just before the instruction that needs it.
+ *
+ * Functions set up a frame pointer, and the frame is laid out as
+ *     [fp, #4]                   return address
+ *     [fp]                       caller's frame pointer
+ *     [fp, #-4] ...              saved registers, in the order pushed
+ *     below them                 spill slots, one word each
+ *     below them                 whatever the function itself pushes
+ */
+public class LinearScanAllocator {
+
+    private static final int WORD_SIZE = 4;
+    private static final int MAX_STACK_OFFSET = 1024;
+    private static final Register[] SCRATCH = {Registers.ip, Registers.lr};
+
+    private int numAllocated = 0;
+    private int numSpilled = 0;
+
+    public void allocate(Arm11Program program) {
+        for(List<Instruction> func : program.getCode().values()) {
+            allocate(func);
+        }
+    }
+
+    /*
+     * Gets how many virtual registers were given a real register over every allocated function
+     */
+    public int getNumAllocated() {
+        return numAllocated;
+    }
+
+    public int getNumSpilled() {
+        return numSpilled;
+    }
+
+    private void allocate(List<Instruction> func) {
+        Liveness liveness = new Liveness(func);
+        List<LiveInterval> intervals = liveness.getIntervals();
+        if(intervals.isEmpty()) return;
+
+        addMoveHints(func, liveness);
+        int numSlots = scan(intervals);
+
+        // the callee saved registers this function writes to, in ascending order
+        SortedSet<Register> used = new TreeSet<>(new Comparator<Register>() {
+            @Override
+            public int compare(Register r1, Register r2) {
+                return r1.getId() - r2.getId();
+            }
+        });
+        for(LiveInterval interval : intervals) {
+            if(!interval.isSpilled()) used.add(interval.getAssigned());
+        }
+
+        rewrite(func, liveness, new ArrayList<>(used), numSlots);
+    }
+
+    /*
+     * A move from a register that dies at the move into one that is born there can be dropped
+     * if both get the same register, so the destination asks for the source's register
+     */
+    private void addMoveHints(List<Instruction> func, Liveness liveness) {
+        for(int i = 0; i < func.size(); i++) {
+            if(!(func.get(i) instanceof MoveInstruction)) continue;
+            MoveInstruction move = (MoveInstruction) func.get(i);
+            if(!move.isRegisterSrc()) continue;
+
+            LiveInterval dest = liveness.getInterval(move.getDest());
+            LiveInterval src = liveness.getInterval(move.getSrc());
+            if(dest != null && src != null && dest.getStart() == 2 * i + 1 && src.getEnd() == 2 * i) {
+                dest.setHint(src);
+            }
+        }
+    }
+
+    /*
+     * Assigns a register or spill slot to every interval, returning the number of slots used
+     */
+    private int scan(List<LiveInterval> intervals) {
+        List<LiveInterval> sorted = new ArrayList<>(intervals);
+        Collections.sort(sorted, new Comparator<LiveInterval>() {
+            @Override
+            public int compare(LiveInterval i1, LiveInterval i2) {
+                return i1.getStart() - i2.getStart();
+            }
+        });
+
+        // intervals currently holding a register, in order of increasing end
+        List<LiveInterval> active = new ArrayList<>();
+        Set<Register> free = new HashSet<>(Registers.GENERAL);
+        int numSlots = 0;
+
+        for(LiveInterval current : sorted) {
+            // intervals that ended before this one starts give back their registers
+            while(!active.isEmpty() && active.get(0).getEnd() < current.getStart()) {
+                free.add(active.remove(0).getAssigned());
+            }
+
+            if(free.isEmpty()) {
+                // spill whichever of this and the active intervals is live for longest
+                LiveInterval last = active.get(active.size() - 1);
+                if(last.getEnd() > current.getEnd()) {
+                    current.setAssigned(last.getAssigned());
+                    last.spill(numSlots++);
+                    active.remove(active.size() - 1);
+                    addActive(active, current);
+                } else {
+                    current.spill(numSlots++);
+                }
+                continue;
+            }
+
+            current.setAssigned(chooseRegister(current, free));
+            free.remove(current.getAssigned());
+            addActive(active, current);
+        }
+
+        numAllocated += intervals.size() - numSlots;
+        numSpilled += numSlots;
+        return numSlots;
+    }
+
+    private static Register chooseRegister(LiveInterval interval, Set<Register> free) {
+        LiveInterval hint = interval.getHint();
+        if(hint != null && hint.getAssigned() != null && free.contains(hint.getAssigned())) {
+            return hint.getAssigned();
+        }
+        for(Register reg : Registers.GENERAL) {
+            if(free.contains(reg)) return reg;
+        }
+        return null;
+    }
+
+    private static void addActive(List<LiveInterval> active, LiveInterval interval) {
+        int i = active.size();
+        while(i > 0 && active.get(i - 1).getEnd() > interval.getEnd()) i--;
+        active.add(i, interval);
+    }
+
+    /*
+     * Replaces virtual registers with the registers they were given, loading and storing spilled
+     * ones around each instruction, and saves the used registers and reserves the spill slots
+     * when the frame is set up
+     */
+    private void rewrite(List<Instruction> func, Liveness liveness, List<Register> used, int numSlots) {
+        int savedSize = used.size() * WORD_SIZE;
+        List<Instruction> result = new ArrayList<>(func.size() + used.size());
+
+        for(Instruction ins : func) {
+            Map<Register, Register> mapping = new HashMap<>();
+            List<Instruction> loads = new ArrayList<>();
+            List<Instruction> stores = new ArrayList<>();
+
+            int scratch = 0;
+            for(Register reg : ins.getUses()) {
+                LiveInterval interval = liveness.getInterval(reg);
+                if(interval == null || mapping.containsKey(reg)) continue;
+                if(!interval.isSpilled()) {
+                    mapping.put(reg, interval.getAssigned());
+                    continue;
+                }
+                Register tmp = nextScratch(scratch++, ins);
+                mapping.put(reg, tmp);
+                loads.add(new LoadInstruction(tmp, new Operand2(Registers.fp, slotOffset(interval, savedSize))));
+            }
+
+            // results go in scratch registers not written by anything else in the instruction
+            Set<Register> written = new HashSet<>();
+            for(Register reg : ins.getDefs()) {
+                LiveInterval interval = liveness.getInterval(reg);
+                if(interval == null) continue;
+                if(!interval.isSpilled()) {
+                    mapping.put(reg, interval.getAssigned());
+                    continue;
+                }
+                if(!mapping.containsKey(reg)) {
+                    int i = 0;
+                    while(written.contains(nextScratch(i, ins))) i++;
+                    mapping.put(reg, nextScratch(i, ins));
+                }
+                written.add(mapping.get(reg));
+                stores.add(new StoreInstruction(mapping.get(reg), Registers.fp, slotOffset(interval, savedSize)));
+            }
+
+            ins.replaceRegisters(mapping);
+            result.addAll(loads);
+            addFrameInstruction(result, ins, used, numSlots);
+            result.addAll(stores);
+        }
+
+        func.clear();
+        func.addAll(result);
+    }
+
+    private static Register nextScratch(int i, Instruction ins) {
+        if(i >= SCRATCH.length) {
+            throw new IllegalStateException("Not enough scratch registers for spilled operands of " + ins.toCode());
+        }
+        return SCRATCH[i];
+    }
+
+    private static int slotOffset(LiveInterval interval, int savedSize) {
+        return -(savedSize + WORD_SIZE * (interval.getSpillSlot() + 1));
+    }
+
+    /*
+     * Adds [ins] to [result]. Setting the frame pointer is followed by saving the used registers
+     * and reserving the spill slots, and resetting the stack pointer from it restores them again
+     */
+    private static void addFrameInstruction(List<Instruction> result, Instruction ins, List<Register> used, int numSlots) {
+        if(!(ins instanceof MoveInstruction) || !((MoveInstruction) ins).isRegisterSrc()) {
+            result.add(ins);
+            return;
+        }
+        MoveInstruction move = (MoveInstruction) ins;
+
+        if(move.getDest().equals(Registers.fp) && move.getSrc().equals(Registers.sp)) {
+            result.add(move);
+            if(!used.isEmpty()) result.add(new PushInstruction(used));
+            for(int size = numSlots * WORD_SIZE; size > 0; size -= MAX_STACK_OFFSET) {
+                result.add(new SubInstruction(Registers.sp, Registers.sp, new Operand2('#', Math.min(size, MAX_STACK_OFFSET))));
+            }
+        } else if(move.getDest().equals(Registers.sp) && move.getSrc().equals(Registers.fp) && !used.isEmpty()) {
+            result.add(new SubInstruction(Registers.sp, Registers.fp, new Operand2('#', used.size() * WORD_SIZE)));
+            result.add(new PopInstruction(used));
+        } else {
+            result.add(move);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package regalloc;
+
+import util.Register;
+
+/*
+ * The range of positions over which a virtual register holds a value that may still be read
+ * Intervals have no holes, so a register live in two places is live everywhere between them
+ */
+public class LiveInterval {
+
+    private final Register reg;
+    private int start = Integer.MAX_VALUE;
+    private int end = Integer.MIN_VALUE;
+
+    // where the allocator placed the register, either a real register or a spill slot
+    private Register assigned;
+    private int spillSlot = -1;
+
+    // an interval whose register this one would like to share, to turn a move into a no-op
+    private LiveInterval hint;
+
+    public LiveInterval(Register reg) {
+        this.reg = reg;
+    }
+
+    /*
+     * Grows the interval so that it covers [pos]
+     */
+    public void extend(int pos) {
+        start = Math.min(start, pos);
+        end = Math.max(end, pos);
+    }
+
+    public Register getReg() {
+        return reg;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public Register getAssigned() {
+        return assigned;
+    }
+
+    public void setAssigned(Register assigned) {
+        this.assigned = assigned;
+    }
+
+    public boolean isSpilled() {
+        return spillSlot >= 0;
+    }
+
+    public int getSpillSlot() {
+        return spillSlot;
+    }
+
+    public void spill(int slot) {
+        assigned = null;
+        spillSlot = slot;
+    }
+
+    public LiveInterval getHint() {
+        return hint;
+    }
+
+    public void setHint(LiveInterval hint) {
+        this.hint = hint;
+    }
+
+    @Override
+    public String toString() {
+        return reg + " [" + start + ", " + end + "] -> " + (isSpilled() ? "slot " + spillSlot : assigned);
+    }
+}
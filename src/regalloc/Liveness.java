@@ -0,0 +1,178 @@
+package regalloc;
+
+import instructions.*;
+import util.Register;
+import util.Registers;
+
+import java.util.*;
+
+/*
+ * Works out the live interval of every virtual register in one function
+ * Instruction i reads its operands at position 2i and writes its results at 2i + 1, so a value
+ * read for the last time by an instruction never overlaps a value first written by it
+ */
+public class Liveness {
+
+    private final List<Instruction> func;
+
+    // every virtual register in the function, numbered in order of first appearance
+    private final Map<Register, Integer> index = new HashMap<>();
+    private final List<LiveInterval> intervals = new ArrayList<>();
+
+    private final List<Block> blocks = new ArrayList<>();
+
+    public Liveness(List<Instruction> func) {
+        this.func = func;
+        numberRegisters();
+        if(intervals.isEmpty()) return;
+
+        findBlocks();
+        solve();
+        buildIntervals();
+    }
+
+    /*
+     * Gets the intervals in order of first appearance of their register
+     */
+    public List<LiveInterval> getIntervals() {
+        return intervals;
+    }
+
+    public LiveInterval getInterval(Register reg) {
+        Integer i = index.get(reg);
+        return i == null ? null : intervals.get(i);
+    }
+
+    private void numberRegisters() {
+        for(Instruction ins : func) {
+            for(Register reg : ins.getUses()) number(reg);
+            for(Register reg : ins.getDefs()) number(reg);
+        }
+    }
+
+    private void number(Register reg) {
+        if(reg.isVirtual() && !index.containsKey(reg)) {
+            index.put(reg, intervals.size());
+            intervals.add(new LiveInterval(reg));
+        }
+    }
+
+    /*
+     * Splits the function into basic blocks, which start at labels and after branches
+     * A branch with link is a call that returns to the next instruction, so it does not end a block
+     */
+    private void findBlocks() {
+        Map<String, Block> labels = new HashMap<>();
+        Block current = null;
+        for(int i = 0; i < func.size(); i++) {
+            Instruction ins = func.get(i);
+            if(current == null || ins instanceof LabelInstruction) {
+                current = new Block(blocks.size(), i);
+                blocks.add(current);
+            }
+            if(ins instanceof LabelInstruction) labels.put(((LabelInstruction) ins).getIdent(), current);
+            current.end = i;
+            if(endsBlock(ins)) current = null;
+        }
+
+        for(Block block : blocks) {
+            Instruction last = func.get(block.end);
+            Block next = block.id + 1 < blocks.size() ? blocks.get(block.id + 1) : null;
+            if(last instanceof BranchInstruction) {
+                addSuccessor(block, labels.get(((BranchInstruction) last).getLabel()));
+            } else if(last instanceof ConditionalBranchInstruction) {
+                addSuccessor(block, labels.get(((ConditionalBranchInstruction) last).getLabel()));
+                addSuccessor(block, next);
+            } else if(!returns(last)) {
+                addSuccessor(block, next);
+            }
+        }
+    }
+
+    private static boolean endsBlock(Instruction ins) {
+        return ins instanceof BranchInstruction || ins instanceof ConditionalBranchInstruction || returns(ins);
+    }
+
+    private static boolean returns(Instruction ins) {
+        return ins instanceof PopInstruction && ((PopInstruction) ins).getRegs().contains(Registers.pc);
+    }
+
+    private static void addSuccessor(Block block, Block successor) {
+        if(successor != null) block.successors.add(successor);
+    }
+
+    /*
+     * Finds the registers live into and out of each block, iterating backwards until nothing changes
+     */
+    private void solve() {
+        for(Block block : blocks) {
+            for(int i = block.start; i <= block.end; i++) {
+                Instruction ins = func.get(i);
+                for(Register reg : ins.getUses()) {
+                    Integer r = index.get(reg);
+                    if(r != null && !block.def.get(r)) block.use.set(r);
+                }
+                for(Register reg : ins.getDefs()) {
+                    Integer r = index.get(reg);
+                    if(r != null) block.def.set(r);
+                }
+            }
+        }
+
+        boolean changed;
+        do {
+            changed = false;
+            for(int b = blocks.size() - 1; b >= 0; b--) {
+                Block block = blocks.get(b);
+                for(Block successor : block.successors) block.liveOut.or(successor.liveIn);
+
+                BitSet liveIn = (BitSet) block.liveOut.clone();
+                liveIn.andNot(block.def);
+                liveIn.or(block.use);
+                if(!liveIn.equals(block.liveIn)) {
+                    block.liveIn = liveIn;
+                    changed = true;
+                }
+            }
+        } while(changed);
+    }
+
+    private void buildIntervals() {
+        for(Block block : blocks) {
+            for(int r = block.liveIn.nextSetBit(0); r >= 0; r = block.liveIn.nextSetBit(r + 1)) {
+                intervals.get(r).extend(2 * block.start);
+            }
+            for(int r = block.liveOut.nextSetBit(0); r >= 0; r = block.liveOut.nextSetBit(r + 1)) {
+                intervals.get(r).extend(2 * block.end + 1);
+            }
+        }
+        for(int i = 0; i < func.size(); i++) {
+            Instruction ins = func.get(i);
+            for(Register reg : ins.getUses()) {
+                if(reg.isVirtual()) getInterval(reg).extend(2 * i);
+            }
+            for(Register reg : ins.getDefs()) {
+                if(reg.isVirtual()) getInterval(reg).extend(2 * i + 1);
+            }
+        }
+    }
+
+    private static class Block {
+        final int id;
+        final int start;
+        int end;
+        final List<Block> successors = new ArrayList<>(2);
+
+        // registers read before being written, and registers written, in this block
+        final BitSet use = new BitSet();
+        final BitSet def = new BitSet();
+
+        BitSet liveIn = new BitSet();
+        final BitSet liveOut = new BitSet();
+
+        Block(int id, int start) {
+            this.id = id;
+            this.start = start;
+        }
+    }
+}
@@ -25,6 +25,17 @@ public class Arm11Program {
     public static final String RUNTIME_ERR_NAME = "p_throw_runtime_error";
     public static final String FREE_PAIR_NAME = "p_free_pair" ;
     public static final String NULL_PTR_NAME = "p_check_null_pointer";
+
+    // error reporters that checks made inline at each use branch to when they fail
+    public static final String NEGATIVE_INDEX_ERROR_NAME = "p_throw_negative_index";
+    public static final String INDEX_TOO_LARGE_ERROR_NAME = "p_throw_index_too_large";
+    public static final String DIVIDE_BY_ZERO_ERROR_NAME = "p_throw_divide_by_zero";
+    public static final String NULL_PTR_ERROR_NAME = "p_throw_null_reference";
+
+    private static final String NEGATIVE_INDEX_MSG = "ArrayIndexOutOfBoundsError: negative index\\n\\0";
+    private static final String INDEX_TOO_LARGE_MSG = "ArrayIndexOutOfBoundsError: index too large\\n\\0";
+    private static final String DIVIDE_BY_ZERO_MSG = "DivideByZeroError: divide or modulo by zero\\n\\0";
+    private static final String NULL_PTR_MSG = "NullReferenceError: dereference a null reference\\n\\0";
     public static String decode(String input) {
         return input.replace("\\0", "\0").replace("\\b", "\b").replace("\\n", "\n").replace("\\f", "\f").replace("\\r", "\r").replace("\\\"", "\"").replace("\\'", "'").replace("\\\\", "\\");
     }
@@ -35,9 +46,13 @@ public class Arm11Program {
 
     List<Instruction> currentFunction;
 
-    List<Instruction> globalCode = new LinkedList<>();
+    List<Instruction> globalCode = new ArrayList<>();
+
+    // every message label in order of creation, emitted together as the .data section
+    List<MsgLabel> data = new ArrayList<>();
 
-    int numMsgLabels = 0;
+    // labels of the messages that are only ever read, which can share one copy of each message
+    Map<String, MsgLabel> stringPool = new HashMap<>();
 
     public Arm11Program() {
         functions.put("global", globalCode);
@@ -60,21 +75,27 @@ public class Arm11Program {
         else return currentFunction.get(currentFunction.size() - 1);
     }
 
+    /*
+     * Adds a new message label for [msg], even if the same message already exists
+     * String literals are mutable and compared by reference, so each one that may escape needs its own copy
+     */
     public String addMsgLabel(String msg) {
-        if(numMsgLabels == 0) globalCode.add(new DataLabel());
-        MsgLabel instruction = new MsgLabel(msg, numMsgLabels);
-        globalCode.add(instruction);
-        numMsgLabels++;
+        MsgLabel instruction = new MsgLabel(msg, data.size());
+        data.add(instruction);
         return instruction.getIdent();
     }
 
+    /*
+     * Gets the label of a message that is never written to, adding it only if it is not already pooled
+     */
     public String getMsgLabel(String msg) {
-        for(Instruction ins : globalCode) {
-            if(ins instanceof MsgLabel && ((MsgLabel) ins).getMsg().equals(msg)) {
-                return ((MsgLabel) ins).getIdent();
-            }
+        MsgLabel instruction = stringPool.get(msg);
+        if(instruction == null) {
+            instruction = new MsgLabel(msg, data.size());
+            data.add(instruction);
+            stringPool.put(msg, instruction);
         }
-        return addMsgLabel(msg);
+        return instruction.getIdent();
     }
 
 
@@ -115,7 +136,7 @@ public class Arm11Program {
     }
 
     public void addPrintlnFunc() {
-        String printlnFunc = addMsgLabel("\\0");
+        String printlnFunc = getMsgLabel("\\0");
         startFunction(PRINTLN_NAME);
         add(new LoadInstruction(Registers.r0, new Operand2(printlnFunc)));
         endPrintFunction("puts");
@@ -155,7 +176,7 @@ public class Arm11Program {
     }
 
     public void addDivideByZeroError() {
-        String divideByZeroFunc = getMsgLabel("DivideByZeroError: divide or modulo by zero\\n\\0");
+        String divideByZeroFunc = getMsgLabel(DIVIDE_BY_ZERO_MSG);
         startFunction(DIVIDE_BY_ZERO_NAME);
         add(new CompareInstruction(Registers.r1, new Operand2('#', 0)));
         add(new LoadEqualInstruction(Registers.r0, new Operand2(divideByZeroFunc)));
@@ -165,8 +186,8 @@ public class Arm11Program {
     }
 
     public void addArrayBoundError() {
-        String arrayBoundNegFunc = getMsgLabel("ArrayIndexOutOfBoundsError: negative index\\n\\0");
-        String arrayBoundTooLargeFunc = getMsgLabel("ArrayIndexOutOfBoundsError: index too large\\n\\0");
+        String arrayBoundNegFunc = getMsgLabel(NEGATIVE_INDEX_MSG);
+        String arrayBoundTooLargeFunc = getMsgLabel(INDEX_TOO_LARGE_MSG);
         startFunction(ARRAY_BOUND_NAME);
         add(new CompareInstruction(Registers.r0, new Operand2('#', 0)));
         add(new LoadLessThanInstruction(Registers.r0, new Operand2(arrayBoundNegFunc)));
@@ -180,7 +201,7 @@ public class Arm11Program {
     }
 
     public void addNullPtrError(){
-        String nullPtrFunc = getMsgLabel("NullReferenceError: dereference a null reference\\n\\0");
+        String nullPtrFunc = getMsgLabel(NULL_PTR_MSG);
         startFunction(NULL_PTR_NAME);
         add(new CompareInstruction(Registers.r0, new Operand2('#', 0)));
         add(new LoadEqualInstruction(Registers.r0, new Operand2(nullPtrFunc)));
@@ -189,8 +210,26 @@ public class Arm11Program {
         endFunction();
     }
 
+    /*
+     * Adds the error reporter called [name], which a check made inline branches to when it fails
+     */
+    public void addErrorFunction(String name) {
+        String msg;
+        switch(name) {
+            case NEGATIVE_INDEX_ERROR_NAME: msg = NEGATIVE_INDEX_MSG; break;
+            case INDEX_TOO_LARGE_ERROR_NAME: msg = INDEX_TOO_LARGE_MSG; break;
+            case DIVIDE_BY_ZERO_ERROR_NAME: msg = DIVIDE_BY_ZERO_MSG; break;
+            case NULL_PTR_ERROR_NAME: msg = NULL_PTR_MSG; break;
+            default: throw new IllegalArgumentException("No error function " + name);
+        }
+        String label = getMsgLabel(msg);
+        startErrorFunction(name);
+        add(new LoadInstruction(Registers.r0, new Operand2(label)));
+        endErrorFunction();
+    }
+
     public void addFreePair() {
-        String freePairFunc = getMsgLabel("NullReferenceError: dereference a null reference\\n\\0");
+        String freePairFunc = getMsgLabel(NULL_PTR_MSG);
         startFunction(FREE_PAIR_NAME);
         add(new CompareInstruction(Registers.r0, new Operand2('#', 0)));
         add(new LoadEqualInstruction(Registers.r0, new Operand2(freePairFunc)));
@@ -214,7 +253,7 @@ public class Arm11Program {
 
 
     private void startErrorFunction(String name) {
-        currentFunction = new LinkedList<>();
+        currentFunction = new ArrayList<>();
         functions.put(name, currentFunction);
         currentFunction.add(new LabelInstruction(name));
         scope.push(currentFunction);
@@ -226,13 +265,33 @@ public class Arm11Program {
         currentFunction = scope.peek();
     }
 
+    /*
+     * Starts a function compiled from the program, which keeps its caller's frame pointer and
+     * points fp at it, so the stack pointer can be moved freely and reset from fp on return
+     */
+    public void startUserFunction(String name) {
+        startErrorFunction(name);
+        currentFunction.add(new PushInstruction(Registers.fp, Registers.lr));
+        currentFunction.add(new MoveInstruction(Registers.fp, Registers.sp));
+    }
+
+    /*
+     * Ends a function started with startUserFunction, which must already have returned on every path
+     */
     public void endUserFunction() {
-        currentFunction.add(new PopInstruction(Registers.pc));
         currentFunction.add(new LtorgDirective());
         scope.pop();
         currentFunction = scope.peek();
     }
 
+    /*
+     * Returns from a function started with startUserFunction
+     */
+    public void addReturn() {
+        add(new MoveInstruction(Registers.sp, Registers.fp));
+        add(new PopInstruction(Registers.fp, Registers.pc));
+    }
+
     private void endErrorFunction() {
         add(new BranchLinkInstruction(RUNTIME_ERR_NAME));
         if(!functionDeclared(RUNTIME_ERR_NAME)) addRuntimeErrFunction();
@@ -265,14 +324,21 @@ public class Arm11Program {
     public String toCode() {
         StringBuilder program = new StringBuilder();
 
+        if(!data.isEmpty()) {
+            appendInstruction(program, new DataLabel());
+            for(MsgLabel msg : data) appendInstruction(program, msg);
+        }
+
         for(List<Instruction> func : functions.values()) {
-            for(Instruction ins : func) {
-                for(int i = 0; i < ins.indentation; i++) program.append("\t");
-                program.append(ins.toCode());
-                program.append('\n');
-            }
+            for(Instruction ins : func) appendInstruction(program, ins);
         }
 
         return program.toString();
     }
+
+    private void appendInstruction(StringBuilder program, Instruction ins) {
+        for(int i = 0; i < ins.indentation; i++) program.append("\t");
+        program.append(ins.toCode());
+        program.append('\n');
+    }
 }
@@ -2,23 +2,78 @@ package util;
 
 import instructions.Operand2;
 
-public class Register {
+/*
+ * An immutable ARM register. There is exactly one instance per register number, so registers
+ * can be shared freely between compilations and compared by identity
+ * Virtual registers stand for values the register allocator has not yet placed, each is
+ * created once by Registers and numbered after the real registers
+ */
+public final class Register {
 
-    private String name;
+    public static final int NUM_REGISTERS = 16;
 
-    public Register(String name) {
-        this.name = name;
+    private static final Register[] REGISTERS = new Register[NUM_REGISTERS];
+
+    static {
+        for(int i = 0; i < NUM_REGISTERS; i++) {
+            REGISTERS[i] = new Register(i, idToName(i));
+        }
     }
 
-    public Register() {}
+    private final int id;
+    private final String name;
 
-    public void setName(String name) {
+    private Register(int id, String name) {
+        this.id = id;
         this.name = name;
     }
 
+    /*
+     * Gets the register with the given number, e.g. 4 gives r4, 13 gives sp
+     */
+    public static Register get(int id) {
+        if(id < 0 || id >= NUM_REGISTERS) {
+            throw new IllegalArgumentException("Invalid register id " + id + " passed to Register::get");
+        }
+        return REGISTERS[id];
+    }
+
+    /*
+     * Creates the [n]th virtual register of a compilation, printed as "v[n]"
+     */
+    public static Register virtual(int n) {
+        if(n < 0) {
+            throw new IllegalArgumentException("Invalid virtual register number " + n + " passed to Register::virtual");
+        }
+        return new Register(NUM_REGISTERS + n, "v" + n);
+    }
+
+    /*
+     * Given an integer id, returns the string name associated with it
+     * e.g. 4 becomes "r4", 13 becomes "sp"
+     */
+    private static String idToName(int id) {
+        switch(id) {
+            case 11: return "fp";
+            case 12: return "ip";
+            case 13: return "sp";
+            case 14: return "lr";
+            case 15: return "pc";
+            default: return "r" + id;
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isVirtual() {
+        return id >= NUM_REGISTERS;
+    }
+
     @Override
     public int hashCode() {
-        return name.hashCode();
+        return id;
     }
 
     @Override
@@ -29,7 +84,7 @@ public class Register {
     @Override
     public boolean equals(Object obj) {
         if(obj instanceof Register) {
-            return ((Register) obj).name.equals(this.name);
+            return obj == this;
         }
         if(obj instanceof Operand2) {
             Register other = ((Operand2) obj).getReg();
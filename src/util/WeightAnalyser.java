@@ -1,17 +1,41 @@
 package util;
 
-import antlr.WaccParser;
 import antlr.WaccParserBaseVisitor;
-import org.antlr.v4.runtime.misc.NotNull;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeProperty;
 import org.antlr.v4.runtime.tree.RuleNode;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
 import static antlr.WaccParser.*;
 
+/*
+ * Calculates how many registers each node of a parse tree uses in code generation.
+ * Binary expressions are given their Sethi-Ullman number, the fewest registers needed to evaluate
+ * them without spilling when the heavier operand is evaluated first.
+ * Visiting a tree annotates every node below it in one bottom up pass, after which
+ * weights are looked up rather than recalculated
+ */
 public class WeightAnalyser extends WaccParserBaseVisitor<Integer> {
 
-    @Override
-    public Integer visitChildren(RuleNode node) {
+    private final ParseTreeProperty<Integer> weights = new ParseTreeProperty<>();
+
+    /*
+     * Gets the weight of [tree], only visiting it if it has not been annotated yet
+     */
+    public int getWeight(ParseTree tree) {
+        Integer weight = weights.get(tree);
+        return weight != null ? weight : visit(tree);
+    }
+
+    private Integer annotate(ParseTree tree, int weight) {
+        weights.put(tree, weight);
+        return weight;
+    }
+
+    /*
+     * Visits every child of [node] so that all of them are annotated, and returns the sum of their weights
+     */
+    private int visitAll(RuleNode node) {
         int result = 0;
         for(int i = 0; i < node.getChildCount(); i++) {
             result += visit(node.getChild(i));
@@ -19,32 +43,56 @@ public class WeightAnalyser extends WaccParserBaseVisitor<Integer> {
         return result;
     }
 
+    @Override
+    public Integer visitChildren(RuleNode node) {
+        return annotate(node, visitAll(node));
+    }
+
     @Override
     public Integer visitTerminal(TerminalNode node) {
-        return 0;
+        return annotate(node, 0);
     }
 
     @Override
     public Integer visitVarAssignment(VarAssignmentContext ctx) {
-        return 1;
+        visitAll(ctx);
+        return annotate(ctx, 1);
     }
 
     @Override
     public Integer visitPairElem(PairElemContext ctx) {
-        return 1;
+        visitAll(ctx);
+        return annotate(ctx, 1);
     }
 
+    /*
+     * The address of the element is held while each index is evaluated
+     */
     @Override
     public Integer visitArrayElem(ArrayElemContext ctx) {
-        return 1;
+        visitAll(ctx);
+        int indexWeight = 0;
+        for(ExprContext index : ctx.expr()) {
+            indexWeight = Math.max(indexWeight, getWeight(index));
+        }
+        return annotate(ctx, 1 + indexWeight);
     }
 
     @Override
     public Integer visitExpr(ExprContext ctx) {
+        visitAll(ctx);
         if(ctx.boolBinaryOper() != null || ctx.otherBinaryOper() != null) {
-            return visitChildren(ctx);
+            // the result of the operand evaluated first is held while the other is evaluated,
+            // so an extra register is only needed when both operands need as many
+            int lhs = getWeight(ctx.expr(0));
+            int rhs = getWeight(ctx.expr(1));
+            return annotate(ctx, lhs == rhs ? lhs + 1 : Math.max(lhs, rhs));
+        } else if(ctx.unaryOper() != null || ctx.OPEN_PARENTHESES() != null) {
+            return annotate(ctx, getWeight(ctx.expr(0)));
+        } else if(ctx.arrayElem() != null) {
+            return annotate(ctx, getWeight(ctx.arrayElem()));
         } else {
-            return 1;
+            return annotate(ctx, 1);
         }
     }
 }